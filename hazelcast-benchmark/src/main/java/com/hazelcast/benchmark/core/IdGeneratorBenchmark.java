@@ -0,0 +1,65 @@
+package com.hazelcast.benchmark.core;
+
+import com.hazelcast.core.IdGenerator;
+import com.hazelcast.impl.FactoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * newId() throughput; run with -t to vary the threads. With more than one
+ * member the threads are spread over the members, each drawing ids from
+ * its own member's generator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"1", "3"})
+    public int members;
+
+    private final List<FactoryImpl> factories = new ArrayList<FactoryImpl>();
+    private IdGenerator[] generators;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Member {
+        IdGenerator generator;
+
+        @Setup(Level.Trial)
+        public void setUp(IdGeneratorBenchmark benchmark) {
+            int index = benchmark.threads.getAndIncrement();
+            generator = benchmark.generators[index % benchmark.generators.length];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generators = new IdGenerator[members];
+        for (int i = 0; i < members; i++) {
+            FactoryImpl factory = FactoryImpl.getFactory("benchmark-ids-" + i);
+            factories.add(factory);
+            generators[i] = factory.getIdGenerator("benchmark");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (int i = factories.size() - 1; i >= 0; i--) {
+            factories.get(i).shutdown();
+        }
+        factories.clear();
+    }
+
+    @Benchmark
+    public long newId(Member member) {
+        return member.generator.newId();
+    }
+}
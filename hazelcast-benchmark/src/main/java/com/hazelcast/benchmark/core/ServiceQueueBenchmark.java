@@ -0,0 +1,126 @@
+package com.hazelcast.benchmark.core;
+
+import com.hazelcast.collection.MpscLinkedQueue;
+import com.hazelcast.collection.SimpleBoundedQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips through the service queue: every producer thread enqueues a
+ * call and spins until a single consumer, draining like ClusterService,
+ * has processed it. Compares the LinkedBlockingQueue ClusterService used
+ * with MpscLinkedQueue; run with -t 1 up to -t 128 to vary the producers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ServiceQueueBenchmark {
+
+    private static final int BULK_SIZE = 64;
+
+    @Param({"LinkedBlockingQueue", "MpscLinkedQueue"})
+    public String queue;
+
+    private ServiceQueue serviceQueue;
+    private Thread consumer;
+    private volatile boolean running;
+
+    @State(Scope.Thread)
+    public static class Call {
+        volatile boolean done;
+
+        void process() {
+            done = true;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serviceQueue = ("MpscLinkedQueue".equals(queue)) ? new MpscServiceQueue() : new BlockingServiceQueue();
+        running = true;
+        consumer = new Thread(new Runnable() {
+            public void run() {
+                SimpleBoundedQueue<Call> bulk = new SimpleBoundedQueue<Call>(BULK_SIZE);
+                while (running) {
+                    try {
+                        int size = serviceQueue.drainTo(bulk);
+                        if (size > 0) {
+                            for (int i = 0; i < size; i++) {
+                                bulk.remove().process();
+                            }
+                        } else {
+                            Call call = serviceQueue.poll();
+                            if (call != null) {
+                                call.process();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "benchmark.ServiceThread");
+        consumer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        consumer.join();
+    }
+
+    @Benchmark
+    public boolean roundTrip(Call call) {
+        call.done = false;
+        serviceQueue.offer(call);
+        while (!call.done) {
+            Thread.yield();
+        }
+        return call.done;
+    }
+
+    interface ServiceQueue {
+        void offer(Call call);
+
+        int drainTo(SimpleBoundedQueue<Call> bulk);
+
+        Call poll() throws InterruptedException;
+    }
+
+    static class BlockingServiceQueue implements ServiceQueue {
+        final LinkedBlockingQueue<Call> queue = new LinkedBlockingQueue<Call>();
+
+        public void offer(Call call) {
+            queue.offer(call);
+        }
+
+        public int drainTo(SimpleBoundedQueue<Call> bulk) {
+            return queue.drainTo(bulk, BULK_SIZE);
+        }
+
+        public Call poll() throws InterruptedException {
+            return queue.poll(100, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    static class MpscServiceQueue implements ServiceQueue {
+        final MpscLinkedQueue<Call> queue = new MpscLinkedQueue<Call>();
+
+        public void offer(Call call) {
+            queue.offer(call);
+        }
+
+        public int drainTo(SimpleBoundedQueue<Call> bulk) {
+            return queue.drainTo(bulk, BULK_SIZE);
+        }
+
+        public Call poll() throws InterruptedException {
+            return queue.poll(100, TimeUnit.MILLISECONDS);
+        }
+    }
+}
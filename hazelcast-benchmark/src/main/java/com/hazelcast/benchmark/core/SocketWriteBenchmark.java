@@ -0,0 +1,82 @@
+package com.hazelcast.benchmark.core;
+
+import com.hazelcast.config.ConfigProperty;
+import com.hazelcast.core.IMap;
+import com.hazelcast.impl.FactoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * put/get round trips between two members of this JVM, which talk over
+ * loopback, comparing the copying socket writes with the gathering ones
+ * for small and 64 KB values. Every thread cycles over its own keys on the
+ * second member, so about half of the calls and all the backups go over
+ * the wire; run with -t to vary how many packets queue up per write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SocketWriteBenchmark {
+
+    private static final int KEYS_PER_THREAD = 256;
+
+    @Param({"16", "65536"})
+    public int valueSize;
+
+    @Param({"false", "true"})
+    public String gathering;
+
+    private final List<FactoryImpl> factories = new ArrayList<FactoryImpl>();
+    private IMap<Integer, byte[]> map;
+    private byte[] value;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Keys {
+        int first;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(SocketWriteBenchmark benchmark) {
+            first = benchmark.threads.getAndIncrement() * KEYS_PER_THREAD;
+        }
+
+        int next() {
+            return first + (next++ % KEYS_PER_THREAD);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty(ConfigProperty.SOCKET_GATHERING_WRITE.getName(), gathering);
+        for (int i = 0; i < 2; i++) {
+            factories.add(FactoryImpl.getFactory("benchmark-socket-" + i));
+        }
+        map = factories.get(1).getMap("benchmark");
+        value = new byte[valueSize];
+        new Random(1).nextBytes(value);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (int i = factories.size() - 1; i >= 0; i--) {
+            factories.get(i).shutdown();
+        }
+        factories.clear();
+    }
+
+    @Benchmark
+    public byte[] putGet(Keys keys) {
+        int key = keys.next();
+        map.put(key, value);
+        return map.get(key);
+    }
+}
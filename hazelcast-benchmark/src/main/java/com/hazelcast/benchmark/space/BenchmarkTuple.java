@@ -0,0 +1,21 @@
+package com.hazelcast.benchmark.space;
+
+import java.io.Serializable;
+
+/**
+ * Tuple used by the space benchmarks. id is unique, group has groups distinct values.
+ */
+public class BenchmarkTuple implements Serializable {
+    public Integer id;
+    public Integer group;
+    public String payload;
+
+    public BenchmarkTuple() {
+    }
+
+    public BenchmarkTuple(int id, int groups) {
+        this.id = id;
+        this.group = id % groups;
+        this.payload = "payload-" + id;
+    }
+}
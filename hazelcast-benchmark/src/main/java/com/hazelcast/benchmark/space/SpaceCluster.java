@@ -0,0 +1,35 @@
+package com.hazelcast.benchmark.space;
+
+import com.hazelcast.impl.FactoryImpl;
+import com.hazelcast.space.TupleSpace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process members sharing one space, for the benchmarks.
+ */
+public class SpaceCluster {
+
+    private final List<FactoryImpl> members = new ArrayList<FactoryImpl>();
+
+    public SpaceCluster(int memberCount) {
+        for (int i = 0; i < memberCount; i++) {
+            members.add(FactoryImpl.getFactory("benchmark-" + i));
+        }
+    }
+
+    /**
+     * The space as seen from the first member, which is where the benchmark threads run.
+     */
+    public TupleSpace getSpace() {
+        return members.get(0).getTupleSpace();
+    }
+
+    public void shutdown() {
+        for (int i = members.size() - 1; i >= 0; i--) {
+            members.get(i).shutdown();
+        }
+        members.clear();
+    }
+}
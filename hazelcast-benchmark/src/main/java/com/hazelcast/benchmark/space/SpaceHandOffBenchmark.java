@@ -0,0 +1,55 @@
+package com.hazelcast.benchmark.space;
+
+import com.hazelcast.space.TupleSpace;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency of handing a tuple from a writer to a taker blocked in take.
+ * The takers and the writer run as one JMH group; use -tg to change the mix.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SpaceHandOffBenchmark {
+
+    private static final long TEN_MINUTES = 10 * 60 * 1000;
+    private static final long TAKE_TIMEOUT = 1000;
+
+    @Param({"1", "3"})
+    public int members;
+
+    private SpaceCluster cluster;
+    private TupleSpace space;
+    private final AtomicInteger ids = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cluster = new SpaceCluster(members);
+        space = cluster.getSpace();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(4)
+    public Object take() {
+        return space.take(new BenchmarkTuple(), TAKE_TIMEOUT);
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(1)
+    public Object write() {
+        return space.write(new BenchmarkTuple(ids.incrementAndGet(), 1), TEN_MINUTES);
+    }
+}
@@ -0,0 +1,68 @@
+package com.hazelcast.benchmark.space;
+
+import com.hazelcast.space.TupleSpace;
+import com.hazelcast.space.event.SpaceEvent;
+import com.hazelcast.space.event.SpaceEventListener;
+import com.hazelcast.space.event.SpaceEventType;
+import com.hazelcast.space.lease.Lease;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time from a write until every registered listener has been notified of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(1)
+public class SpaceNotifyBenchmark {
+
+    private static final long TEN_MINUTES = 10 * 60 * 1000;
+
+    @Param({"1", "16", "64"})
+    public int listeners;
+
+    @Param({"1", "3"})
+    public int members;
+
+    private SpaceCluster cluster;
+    private TupleSpace space;
+    private final AtomicLong notified = new AtomicLong();
+    private final AtomicInteger ids = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cluster = new SpaceCluster(members);
+        space = cluster.getSpace();
+        for (int i = 0; i < listeners; i++) {
+            space.notify(new BenchmarkTuple(), new SpaceEventListener() {
+                public void notify(SpaceEvent event) {
+                    if (event.getType() == SpaceEventType.ADDED) {
+                        notified.incrementAndGet();
+                    }
+                }
+            }, Lease.FOREVER);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    @Benchmark
+    public long writeAndFanOut() {
+        long expected = notified.get() + listeners;
+        space.write(new BenchmarkTuple(ids.incrementAndGet(), 1), TEN_MINUTES);
+        while (notified.get() < expected) {
+            Thread.yield();
+        }
+        return expected;
+    }
+}
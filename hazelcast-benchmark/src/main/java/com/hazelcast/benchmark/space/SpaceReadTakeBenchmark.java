@@ -0,0 +1,86 @@
+package com.hazelcast.benchmark.space;
+
+import com.hazelcast.space.TupleSpace;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * readIfExists and takeIfExists against a pre-filled space. selectivity is the
+ * number of distinct group values, so a group template matches
+ * spaceSize / selectivity tuples; a miss template matches none.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SpaceReadTakeBenchmark {
+
+    private static final long TEN_MINUTES = 10 * 60 * 1000;
+
+    @Param({"1000", "10000"})
+    public int spaceSize;
+
+    @Param({"1", "10", "1000"})
+    public int selectivity;
+
+    @Param({"1", "3"})
+    public int members;
+
+    private SpaceCluster cluster;
+    private TupleSpace space;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cluster = new SpaceCluster(members);
+        space = cluster.getSpace();
+        for (int i = 0; i < spaceSize; i++) {
+            space.write(new BenchmarkTuple(i, selectivity), TEN_MINUTES);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    private BenchmarkTuple hitTemplate() {
+        BenchmarkTuple template = new BenchmarkTuple();
+        template.group = ThreadLocalRandom.current().nextInt(selectivity);
+        return template;
+    }
+
+    @Benchmark
+    public Object readHit() {
+        return space.readIfExists(hitTemplate());
+    }
+
+    @Benchmark
+    public Object readMiss() {
+        BenchmarkTuple template = new BenchmarkTuple();
+        template.group = -1;
+        return space.readIfExists(template);
+    }
+
+    /**
+     * Takes a match and writes it back so the space size stays put.
+     */
+    @Benchmark
+    public Object takeHitAndWriteBack() {
+        BenchmarkTuple taken = space.takeIfExists(hitTemplate());
+        if (taken != null) {
+            space.write(taken, TEN_MINUTES);
+        }
+        return taken;
+    }
+
+    @Benchmark
+    public Object takeMiss() {
+        BenchmarkTuple template = new BenchmarkTuple();
+        template.group = -1;
+        return space.takeIfExists(template);
+    }
+}
@@ -0,0 +1,44 @@
+package com.hazelcast.benchmark.space;
+
+import com.hazelcast.space.TupleSpace;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write throughput; run with -t to vary the writer threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SpaceWriteBenchmark {
+
+    private static final long TEN_MINUTES = 10 * 60 * 1000;
+
+    @Param({"1", "3"})
+    public int members;
+
+    private SpaceCluster cluster;
+    private TupleSpace space;
+    private final AtomicInteger ids = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cluster = new SpaceCluster(members);
+        space = cluster.getSpace();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    @Benchmark
+    public Object write() {
+        return space.write(new BenchmarkTuple(ids.incrementAndGet(), 10), TEN_MINUTES);
+    }
+}
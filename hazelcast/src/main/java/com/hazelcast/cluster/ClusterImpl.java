@@ -130,6 +130,10 @@ public class ClusterImpl implements Cluster {
         return localMember.get();
     }
 
+    public Node getNode() {
+        return node;
+    }
+
     public Set<Member> getMembers() {
         return members.get();
     }
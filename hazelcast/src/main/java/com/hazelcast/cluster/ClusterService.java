@@ -17,6 +17,7 @@
 
 package com.hazelcast.cluster;
 
+import com.hazelcast.collection.MpscLinkedQueue;
 import com.hazelcast.collection.SimpleBoundedQueue;
 import com.hazelcast.config.ConfigProperty;
 import com.hazelcast.core.Hazelcast;
@@ -25,8 +26,9 @@ import com.hazelcast.impl.BaseManager.PacketProcessor;
 import com.hazelcast.impl.BaseManager.Processable;
 import com.hazelcast.nio.Packet;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -38,13 +40,13 @@ public final class ClusterService implements Runnable, Constants {
 
     private static final long MAX_IDLE_NANOS = TimeUnit.SECONDS.toNanos(ConfigProperty.MAX_NO_HEARTBEAT_SECONDS.getInteger());
 
-    private final BlockingQueue queue = new LinkedBlockingQueue();
+    private final MpscLinkedQueue<Object> queue = new MpscLinkedQueue<Object>();
 
     private volatile boolean running = true;
 
     private static final int BULK_SIZE = 64;
 
-    private final SimpleBoundedQueue bulk = new SimpleBoundedQueue(BULK_SIZE);
+    private final SimpleBoundedQueue<Object> bulk = new SimpleBoundedQueue<Object>(BULK_SIZE);
 
     private long totalProcessTime = 0;
 
@@ -54,7 +56,10 @@ public final class ClusterService implements Runnable, Constants {
 
     private final BaseManager.PacketProcessor[] packetProcessors = new BaseManager.PacketProcessor[300];
 
-    private final Runnable[] periodicRunnables = new Runnable[3];
+    private final Runnable[] periodicRunnables = new Runnable[5];
+
+    // service thread only; messages held back by enqueueLater
+    private final List<DelayedMessage> lsDelayed = new LinkedList<DelayedMessage>();
     
     private final Node node;
 
@@ -90,11 +95,15 @@ public final class ClusterService implements Runnable, Constants {
     }
 
     public void enqueueAndReturn(final Object message) {
-        try {
-            queue.put(message);
-        } catch (final InterruptedException e) {
-            node.handleInterruptedException(Thread.currentThread(), e);
-        }
+        queue.offer(message);
+    }
+
+    /**
+     * Enqueues the message once the delay passed, as checked along with the
+     * periodic runnables. Must be called on the service thread.
+     */
+    public void enqueueLater(final Object message, final long delayMillis) {
+        lsDelayed.add(new DelayedMessage(message, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis)));
     }
 
     public void process(final Object obj) {
@@ -155,6 +164,7 @@ public final class ClusterService implements Runnable, Constants {
         }
         bulk.clear();
         queue.clear();
+        lsDelayed.clear();
     }
 
     public void start() {
@@ -164,8 +174,10 @@ public final class ClusterService implements Runnable, Constants {
         running = true;
     }
 
+    /**
+     * The service thread clears its own queue as it stops.
+     */
     public void stop() {
-        queue.clear();
         running = false;
     }
 
@@ -193,6 +205,15 @@ public final class ClusterService implements Runnable, Constants {
                     runnable.run();
                 }
             }
+            if (!lsDelayed.isEmpty()) {
+                for (Iterator<DelayedMessage> it = lsDelayed.iterator(); it.hasNext();) {
+                    DelayedMessage delayed = it.next();
+                    if (now - delayed.due >= 0) {
+                        it.remove();
+                        queue.offer(delayed.message);
+                    }
+                }
+            }
             lastPeriodicCheck = now;
         }
     }
@@ -200,4 +221,14 @@ public final class ClusterService implements Runnable, Constants {
     public long getTotalProcessTime() {
         return totalProcessTime;
     }
+
+    private static class DelayedMessage {
+        final Object message;
+        final long due;
+
+        DelayedMessage(Object message, long due) {
+            this.message = message;
+            this.due = due;
+        }
+    }
 }
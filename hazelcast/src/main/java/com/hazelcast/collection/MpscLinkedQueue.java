@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2007-2008, Hazel Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.hazelcast.collection;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Unbounded queue for many producer threads and a single consumer thread.
+ * Producers link their node with one atomic swap of the tail and never
+ * lock; the consumer drains in batches and parks when the queue is empty,
+ * to be unparked by the next offer.
+ * <p/>
+ * poll, drainTo and clear may only be called by the consumer thread.
+ */
+public final class MpscLinkedQueue<E> {
+
+    private final AtomicReference<Node<E>> tail;
+
+    // consumer only; the node before the first element
+    private volatile Node<E> head;
+
+    // the consumer while it is parked waiting for an offer
+    private volatile Thread parked;
+
+    public MpscLinkedQueue() {
+        Node<E> stub = new Node<E>(null);
+        head = stub;
+        tail = new AtomicReference<Node<E>>(stub);
+    }
+
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        final Node<E> node = new Node<E>(e);
+        final Node<E> prev = tail.getAndSet(node);
+        prev.next = node;
+        final Thread consumer = parked;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    public E poll() {
+        final Node<E> h = head;
+        Node<E> next = h.next;
+        if (next == null) {
+            if (h == tail.get()) {
+                return null;
+            }
+            // a producer swapped the tail but has not linked its node yet
+            while ((next = h.next) == null) {
+                Thread.yield();
+            }
+        }
+        final E value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    /**
+     * Waits up to the timeout for an element.
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E value = poll();
+        if (value != null) {
+            return value;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        parked = Thread.currentThread();
+        try {
+            while (true) {
+                value = poll();
+                if (value != null) {
+                    return value;
+                }
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                LockSupport.parkNanos(remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            parked = null;
+        }
+    }
+
+    /**
+     * Moves up to maxElements elements to the collection without waiting.
+     *
+     * @return the number of elements moved
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        int count = 0;
+        while (count < maxElements) {
+            final E value = poll();
+            if (value == null) {
+                break;
+            }
+            c.add(value);
+            count++;
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return head == tail.get();
+    }
+
+    /**
+     * Counts the elements, only an estimate when called while elements
+     * are offered or polled.
+     */
+    public int size() {
+        int size = 0;
+        for (Node<E> node = head.next; node != null && size < Integer.MAX_VALUE; node = node.next) {
+            size++;
+        }
+        return size;
+    }
+
+    public void clear() {
+        while (poll() != null) {
+        }
+    }
+
+    private static final class Node<E> {
+        E value;
+        volatile Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+}
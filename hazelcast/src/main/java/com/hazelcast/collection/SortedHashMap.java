@@ -251,6 +251,30 @@ public class SortedHashMap<K, V> extends AbstractMap<K, V> {
     }
 
 
+    /**
+     * Adds the values of the buckets from the given cursor on, 0 to start,
+     * until at least count of them were added or every bucket was visited.
+     * The buckets are visited in reverse binary order, so a value present
+     * for the whole walk is added exactly once even if the table grows in
+     * between; the table never shrinks. Values put or removed in between
+     * may or may not be added.
+     *
+     * @return the cursor to continue from, 0 after the last bucket
+     */
+    public int scan(int cursor, Collection<V> values, int count) {
+        int mask = table.length - 1;
+        int added = 0;
+        do {
+            for (Entry<K, V> e = table[cursor & mask]; e != null; e = e.next) {
+                values.add(e.value);
+                added++;
+            }
+            // increment the reversed bits of the cursor, carrying past the mask
+            cursor = Integer.reverse(Integer.reverse(cursor | ~mask) + 1);
+        } while (cursor != 0 && added < count);
+        return cursor;
+    }
+
     public boolean containsValue(Object value) {
         // Overridden to take advantage of faster iterator
         if (value == null) {
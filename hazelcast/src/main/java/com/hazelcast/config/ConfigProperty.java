@@ -24,7 +24,14 @@ public enum ConfigProperty {
     MAX_NO_HEARTBEAT_SECONDS("hazelcast.max.no.heartbeat.seconds", "30"),
     CONCURRENT_MAP_BLOCK_COUNT("hazelcast.map.block.count", "271"),
     BLOCKING_QUEUE_BLOCK_SIZE("hazelcast.queue.block.size", "1000"),
-    REMOVE_DELAY_SECONDS("hazelcast.map.remove.delay.seconds", "5");
+    REMOVE_DELAY_SECONDS("hazelcast.map.remove.delay.seconds", "5"),
+    MAP_OFFHEAP_SLAB_SIZE("hazelcast.map.offheap.slab.size", "4194304"),
+    MAP_EVICTION_BATCH_SIZE("hazelcast.map.eviction.batch.size", "1000"),
+    MAP_ITERATION_FETCH_SIZE("hazelcast.map.iteration.fetch.size", "1000"),
+    SOCKET_GATHERING_WRITE("hazelcast.socket.gathering.write", "false"),
+    SOCKET_GATHER_MAX_PACKETS("hazelcast.socket.gather.max.packets", "64"),
+    IO_INPUT_THREAD_COUNT("hazelcast.io.input.thread.count", "1"),
+    IO_OUTPUT_THREAD_COUNT("hazelcast.io.output.thread.count", "1");
 
     private final String name;
     private final String defaultValue;
@@ -10,6 +10,9 @@ public class MapConfig {
 	public final static int DEFAULT_TTL_SECONDS = 0;
 	public final static int DEFAULT_MAX_SIZE = Integer.MAX_VALUE;
 	public final static String DEFAULT_EVICTION_POLICY = "NONE";
+	public final static String DEFAULT_STORAGE_TYPE = "HEAP";
+	public final static String DEFAULT_READ_BACKUP_DATA = "NONE";
+	public final static int DEFAULT_READ_BACKUP_MAX_LAG_MILLIS = 2000;
 	
     private String name;
 
@@ -23,8 +26,16 @@ public class MapConfig {
 
     private String evictionPolicy = DEFAULT_EVICTION_POLICY;
 
+    private String storageType = DEFAULT_STORAGE_TYPE;
+
+    private String readBackupData = DEFAULT_READ_BACKUP_DATA;
+
+    private int readBackupMaxLagMillis = DEFAULT_READ_BACKUP_MAX_LAG_MILLIS;
+
     private MapStoreConfig mapStoreConfig = null;
 
+    private NearCacheConfig nearCacheConfig = null;
+
 	/**
 	 * @return the name
 	 */
@@ -109,6 +120,62 @@ public class MapConfig {
 		this.evictionPolicy = evictionPolicy;
 	}
 
+	/**
+	 * @return the storageType, HEAP or OFFHEAP
+	 */
+	public String getStorageType() {
+		return storageType;
+	}
+
+	/**
+	 * OFFHEAP keeps the values of the map in direct memory, outside the
+	 * garbage collected heap.
+	 *
+	 * @param storageType the storageType to set
+	 */
+	public void setStorageType(String storageType) {
+		this.storageType = storageType;
+	}
+
+	/**
+	 * @return the readBackupData mode, NONE, UNBOUNDED_LAG or BOUNDED_LAG
+	 */
+	public String getReadBackupData() {
+		return readBackupData;
+	}
+
+	/**
+	 * UNBOUNDED_LAG lets a member answer get and containsKey from its
+	 * backup copy of an entry, instead of asking the owner, when the copy
+	 * has every backup of the entry it received applied in order and the
+	 * entry is not locked. Nothing is compared with the owner, so the copy
+	 * misses the writes whose backups are still on their way, for as long
+	 * as they take: the staleness is unbounded. BOUNDED_LAG also requires
+	 * the owner to have been heard from within readBackupMaxLagMillis,
+	 * which bounds it. NONE always asks the owner. A map with
+	 * LRU or LFU eviction always asks the owner too, as a read answered
+	 * from a backup would not count as an access of the entry.
+	 *
+	 * @param readBackupData the readBackupData mode to set
+	 */
+	public void setReadBackupData(String readBackupData) {
+		this.readBackupData = readBackupData;
+	}
+
+	/**
+	 * @return the readBackupMaxLagMillis
+	 */
+	public int getReadBackupMaxLagMillis() {
+		return readBackupMaxLagMillis;
+	}
+
+	/**
+	 * @param readBackupMaxLagMillis the readBackupMaxLagMillis to set
+	 */
+	public void setReadBackupMaxLagMillis(int readBackupMaxLagMillis) {
+		this.readBackupMaxLagMillis = readBackupMaxLagMillis;
+	}
+
     /**
      *  Returns the map store configuration
      * 
@@ -125,4 +192,21 @@ public class MapConfig {
     public void setMapStoreConfig(MapStoreConfig mapStoreConfig) {
         this.mapStoreConfig = mapStoreConfig;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the near cache configuration, null if the map has no near cache
+     *
+     * @return the nearCacheConfig
+     */
+    public NearCacheConfig getNearCacheConfig() {
+        return nearCacheConfig;
+    }
+
+    /**
+     * Sets the near cache configuration
+     * @param nearCacheConfig the nearCacheConfig to set
+     */
+    public void setNearCacheConfig(NearCacheConfig nearCacheConfig) {
+        this.nearCacheConfig = nearCacheConfig;
+    }
+}
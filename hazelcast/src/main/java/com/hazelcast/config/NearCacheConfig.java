@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2007-2008, Hazel Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.hazelcast.config;
+
+/**
+ * Near cache configuration. A map with a near cache keeps the values it
+ * reads on the member reading them, until the owner of the entry reports
+ * a change or the cached value expires.
+ */
+public final class NearCacheConfig {
+    private boolean enabled = true;
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private int timeToLiveSeconds = DEFAULT_TTL_SECONDS;
+    private String evictionPolicy = DEFAULT_EVICTION_POLICY;
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+    public static final int DEFAULT_TTL_SECONDS = 0;
+    public static final String DEFAULT_EVICTION_POLICY = "LRU";
+
+    /**
+     * Returns the maximum number of cached values
+     * @return the maximum size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of cached values, 0 means Integer.MAX_VALUE
+     * @param maxSize the maximum size to set
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the number of seconds a value stays cached
+     * @return the time to live in seconds, 0 means forever
+     */
+    public int getTimeToLiveSeconds() {
+        return timeToLiveSeconds;
+    }
+
+    /**
+     * Sets the number of seconds a value stays cached, 0 means forever
+     * @param timeToLiveSeconds the time to live in seconds
+     */
+    public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+        this.timeToLiveSeconds = timeToLiveSeconds;
+    }
+
+    /**
+     * Returns the policy choosing the values to drop when the cache is full
+     * @return LRU or LFU
+     */
+    public String getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Sets the policy choosing the values to drop when the cache is full,
+     * LRU (least recently used) or LFU (least frequently used)
+     * @param evictionPolicy the eviction policy to set
+     */
+    public void setEvictionPolicy(String evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    /**
+     * Returns if this configuration is enabled
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables and disables this configuration
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -397,6 +397,13 @@ public class XmlConfigBuilder implements ConfigBuilder {
                 config.setBackupCount(getIntegerValue("backup-count", value, MapConfig.DEFAULT_BACKUP_COUNT));
             } else if ("eviction-policy".equals(nodeName)) {
                 config.setEvictionPolicy(value);
+            } else if ("storage-type".equals(nodeName)) {
+                config.setStorageType(value);
+            } else if ("read-backup-data".equals(nodeName)) {
+                config.setReadBackupData(value);
+            } else if ("read-backup-max-lag-millis".equals(nodeName)) {
+                config.setReadBackupMaxLagMillis(getIntegerValue("read-backup-max-lag-millis", value,
+                        MapConfig.DEFAULT_READ_BACKUP_MAX_LAG_MILLIS));
             } else if ("max-size".equals(nodeName)) {
                 config.setMaxSize(getIntegerValue("max-size", value,
                         MapConfig.DEFAULT_MAX_SIZE));
@@ -409,6 +416,8 @@ public class XmlConfigBuilder implements ConfigBuilder {
             } else if ("map-store".equals(nodeName)) {
                 MapStoreConfig mapStoreConfig = createMapStoreConfig(n);
                 config.setMapStoreConfig(mapStoreConfig);
+            } else if ("near-cache".equals(nodeName)) {
+                config.setNearCacheConfig(createNearCacheConfig(n));
             }
         }
         this.config.getMapMapConfigs().put(name, config);
@@ -439,6 +448,33 @@ public class XmlConfigBuilder implements ConfigBuilder {
         return mapStoreConfig;
     }
 
+    private NearCacheConfig createNearCacheConfig(final org.w3c.dom.Node node) {
+        NearCacheConfig nearCacheConfig = new NearCacheConfig();
+
+        final NamedNodeMap atts = node.getAttributes();
+        for (int a = 0; a < atts.getLength(); a++) {
+            final org.w3c.dom.Node att = atts.item(a);
+            final String value = getTextContent(att).trim();
+            if (att.getNodeName().equals("enabled")) {
+                nearCacheConfig.setEnabled(checkTrue(value));
+            }
+        }
+        final NodeList nodelist = node.getChildNodes();
+        for (int i = 0; i < nodelist.getLength(); i++) {
+            final org.w3c.dom.Node n = nodelist.item(i);
+            final String nodeName = n.getNodeName().toLowerCase();
+            final String value = getTextContent(n).trim();
+            if ("max-size".equals(nodeName)) {
+                nearCacheConfig.setMaxSize(getIntegerValue("max-size", value, NearCacheConfig.DEFAULT_MAX_SIZE));
+            } else if ("time-to-live-seconds".equals(nodeName)) {
+                nearCacheConfig.setTimeToLiveSeconds(getIntegerValue("time-to-live-seconds", value, NearCacheConfig.DEFAULT_TTL_SECONDS));
+            } else if ("eviction-policy".equals(nodeName)) {
+                nearCacheConfig.setEvictionPolicy(value);
+            }
+        }
+        return nearCacheConfig;
+    }
+
     private void handleTcpIp(final org.w3c.dom.Node node) {
         final NamedNodeMap atts = node.getAttributes();
         final Join join = config.getNetworkConfig().getJoin();
@@ -17,7 +17,10 @@
 
 package com.hazelcast.core;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 public interface IMap<K, V> extends ConcurrentMap<K, V>, Instance {
@@ -42,4 +45,42 @@ public interface IMap<K, V> extends ConcurrentMap<K, V>, Instance {
 
     MapEntry getMapEntry(Object key);
 
+    /**
+     * Returns the entries of the given keys that the map contains, asking
+     * each owner member once for all of its keys.
+     *
+     * @param keys keys to get
+     * @return map of the keys found and their values
+     */
+    Map<K, V> getAll(Set<K> keys);
+
+    /**
+     * Gets the value of the key without waiting for the owner member.
+     *
+     * @param key key to get
+     * @return future of the value, null if the map does not contain the key
+     */
+    Future<V> getAsync(K key);
+
+    /**
+     * Same as {@link #getAsync(Object)}, calling the callback on an executor
+     * thread once the value is got.
+     */
+    Future<V> getAsync(K key, ExecutionCallback<V> callback);
+
+    /**
+     * Puts the entry without waiting for the owner and backup members.
+     *
+     * @param key   key of the entry
+     * @param value value of the entry
+     * @return future of the previous value
+     */
+    Future<V> putAsync(K key, V value);
+
+    /**
+     * Same as {@link #putAsync(Object, Object)}, calling the callback on an
+     * executor thread once the entry is put and backed up.
+     */
+    Future<V> putAsync(K key, V value, ExecutionCallback<V> callback);
+
 }
@@ -18,7 +18,21 @@
 package com.hazelcast.core;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
 
 public interface IQueue<E> extends ICollection<E>, BlockingQueue<E>, Instance {
 
+    /**
+     * Offers the item without waiting for the queue to take it.
+     *
+     * @param e item to offer
+     * @return future of the result offer would return
+     */
+    Future<Boolean> offerAsync(E e);
+
+    /**
+     * Same as {@link #offerAsync(Object)}, calling the callback on an
+     * executor thread once the offer is done.
+     */
+    Future<Boolean> offerAsync(E e, ExecutionCallback<Boolean> callback);
 }
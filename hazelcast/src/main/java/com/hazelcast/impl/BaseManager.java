@@ -33,10 +33,16 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
+import com.hazelcast.core.ExecutionCallback;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -633,6 +639,9 @@ public abstract class BaseManager {
     public abstract class ResponseQueueCall extends RequestBasedCall {
         final protected BlockingQueue responses = new ArrayBlockingQueue(1);
 
+        // set when nobody waits for the result, the result completes it instead
+        protected AsyncResult asyncResult = null;
+
         public ResponseQueueCall() {
         }
 
@@ -714,7 +723,9 @@ public abstract class BaseManager {
         }
 
         protected void setResult(final Object obj) {
-            if (obj == null) {
+            if (asyncResult != null) {
+                asyncResult.onResult((obj == null) ? OBJECT_NULL : obj);
+            } else if (obj == null) {
                 responses.add(OBJECT_NULL);
             } else {
                 responses.add(obj);
@@ -722,6 +733,107 @@ public abstract class BaseManager {
         }
     }
 
+    /**
+     * The result of a call nobody waits for. The response handler completes
+     * it, on the service thread, and a redo makes the call again on a later
+     * periodic tick instead of sleeping. The callback runs on an executor
+     * thread so it may make calls of its own.
+     */
+    public class AsyncResult implements Future {
+        private final ResponseQueueCall call;
+        private final ExecutionCallback callback;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Object result = null;
+        private volatile Object value = null;
+
+        public AsyncResult(ResponseQueueCall call, ExecutionCallback callback) {
+            this.call = call;
+            this.callback = callback;
+            if (call != null) {
+                call.asyncResult = this;
+            }
+        }
+
+        void onResult(Object obj) {
+            if (obj == OBJECT_REDO) {
+                call.request.redoCount++;
+                call.beforeRedo();
+                node.clusterService.enqueueLater(call, 1000L * Math.min(call.request.redoCount, 5));
+            } else {
+                onResponse(obj);
+            }
+        }
+
+        /**
+         * Called with the response of the call, completes the result unless
+         * there is more to do first.
+         */
+        void onResponse(Object response) {
+            complete(response);
+        }
+
+        /**
+         * Runs right before the result is handed out, so whatever it does
+         * is seen by get() and the callback.
+         */
+        void beforeComplete() {
+        }
+
+        final void complete(Object response) {
+            beforeComplete();
+            result = response;
+            latch.countDown();
+            if (callback != null) {
+                executeLocally(new Runnable() {
+                    public void run() {
+                        callback.done(AsyncResult.this);
+                    }
+                });
+            }
+        }
+
+        public Object get() throws InterruptedException, ExecutionException {
+            latch.await();
+            return getValue();
+        }
+
+        public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if (!latch.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return getValue();
+        }
+
+        private Object getValue() throws ExecutionException {
+            Object r = result;
+            if (r instanceof AddressAwareException) {
+                throw new ExecutionException(((AddressAwareException) r).getException());
+            } else if (r instanceof Throwable) {
+                throw new ExecutionException((Throwable) r);
+            } else if (r == OBJECT_NULL) {
+                return null;
+            } else if (r instanceof Data) {
+                if (value == null) {
+                    value = toObject(doHardCopy((Data) r));
+                }
+                return value;
+            }
+            return r;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return false;
+        }
+
+        public boolean isDone() {
+            return latch.getCount() == 0;
+        }
+    }
+
     public abstract class BooleanOp extends TargetAwareOp {
         @Override
         void handleNoneRedoResponse(final Packet packet) {
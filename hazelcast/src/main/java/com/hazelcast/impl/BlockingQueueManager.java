@@ -22,6 +22,7 @@ import com.hazelcast.config.Config;
 import com.hazelcast.config.ConfigProperty;
 import com.hazelcast.config.QueueConfig;
 import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.Transaction;
 import com.hazelcast.impl.BlockingQueueManager.Q.ScheduledOfferAction;
@@ -39,6 +40,7 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Future;
 
 public class BlockingQueueManager extends BaseManager {
     private static final int BLOCK_SIZE = ConfigProperty.BLOCKING_QUEUE_BLOCK_SIZE.getInteger(1000);
@@ -876,6 +878,22 @@ public class BlockingQueueManager extends BaseManager {
             return true;
         }
 
+        /**
+         * Same as offer without a timeout but returns without waiting for the
+         * owner; inside a transaction the item is attached right away.
+         */
+        public Future offerAsync(String name, Object value, ExecutionCallback callback) {
+            TransactionImpl txn = ThreadContext.get().txn;
+            if (txn != null && txn.getStatus() == Transaction.TXN_STATUS_ACTIVE) {
+                AsyncResult result = new AsyncResult(null, callback);
+                result.complete(offer(name, value, 0));
+                return result;
+            }
+            AsyncResult result = new AsyncResult(this, callback);
+            doOp(ClusterOperation.BLOCKING_QUEUE_OFFER, name, null, value, 0, -1);
+            return result;
+        }
+
         @Override
         void handleNoneRedoResponse(Packet packet) {
             if (request.operation == ClusterOperation.BLOCKING_QUEUE_OFFER
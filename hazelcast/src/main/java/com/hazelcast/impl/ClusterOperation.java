@@ -78,7 +78,11 @@ public enum ClusterOperation {
     CONCURRENT_MAP_BACKUP_REMOVE_MULTI(234),
     CONCURRENT_MAP_BACKUP_LOCK(235),
     CONCURRENT_MAP_BACKUP_ADD(236),
-    CONCURRENT_MAP_EVICT(237),;
+    CONCURRENT_MAP_EVICT(237),
+    CONCURRENT_MAP_QUERY(238),
+    CONCURRENT_MAP_GET_ALL(239),
+    CONCURRENT_MAP_PUT_ALL(240),
+    CONCURRENT_MAP_BACKUP_PUT_ALL(241),;
 
     private int value;
 
@@ -214,6 +218,14 @@ public enum ClusterOperation {
                 return CONCURRENT_MAP_BACKUP_ADD;
             case 237:
                 return CONCURRENT_MAP_EVICT;
+            case 238:
+                return CONCURRENT_MAP_QUERY;
+            case 239:
+                return CONCURRENT_MAP_GET_ALL;
+            case 240:
+                return CONCURRENT_MAP_PUT_ALL;
+            case 241:
+                return CONCURRENT_MAP_BACKUP_PUT_ALL;
             default:
                 return null;
         }
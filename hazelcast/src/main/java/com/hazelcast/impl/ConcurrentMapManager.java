@@ -41,10 +41,11 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
@@ -53,7 +54,18 @@ public final class ConcurrentMapManager extends BaseManager {
     private final Block[] blocks;
     private final Map<String, CMap> maps;
     private final LoadStoreFork[] loadStoreForks;
+    private final Map<String, MapIndexFactory> mapIndexFactories = new ConcurrentHashMap<String, MapIndexFactory>(2);
+    private final Map<String, OwnerEntryListener> ownerEntryListeners = new ConcurrentHashMap<String, OwnerEntryListener>(2);
     private static long GLOBAL_REMOVE_DELAY_MILLIS = ConfigProperty.REMOVE_DELAY_SECONDS.getLong() * 1000L;
+    // most entries a map evicts per tick, so eviction never holds the service thread for long
+    private static final int EVICTION_BATCH_SIZE = ConfigProperty.MAP_EVICTION_BATCH_SIZE.getInteger();
+    // how many records a tick may look at per entry it can evict, backups and locked entries are skipped
+    private static final int EVICTION_SCAN_FACTOR = 4;
+    // entries per page when iterating a map
+    static final int ITERATION_FETCH_SIZE = ConfigProperty.MAP_ITERATION_FETCH_SIZE.getInteger();
+    // an iteration cursor not asked for its next page this long is dropped
+    // fetch sizes asking an iteration for the count of the owned entries, or to drop a cursor
+    static final long ITERATION_COUNT = -2;
 
     ConcurrentMapManager(Node node) {
         super (node);
@@ -68,7 +80,7 @@ public final class ConcurrentMapManager extends BaseManager {
                 Collection<CMap> cmaps = maps.values();
                 for (CMap cmap : cmaps) {
                     cmap.startRemove();
-                    if (cmap.ttl != 0) {
+                    if (cmap.ttl != 0 || cmap.evictionPolicy != OrderingType.NONE) {
                         cmap.startEviction();
                     }
                     if (cmap.writeDelaySeconds > 0) {
@@ -108,6 +120,85 @@ public final class ConcurrentMapManager extends BaseManager {
         registerPacketProcessor(CONCURRENT_MAP_BLOCKS, new BlocksOperationHandler());
         registerPacketProcessor(CONCURRENT_MAP_MIGRATION_COMPLETE, new MigrationCompleteOperationHandler());
         registerPacketProcessor(CONCURRENT_MAP_VALUE_COUNT, new ValueCountOperationHandler());
+        registerPacketProcessor(CONCURRENT_MAP_QUERY, new QueryOperationHandler());
+        registerPacketProcessor(CONCURRENT_MAP_GET_ALL, new GetAllOperationHandler());
+        registerPacketProcessor(CONCURRENT_MAP_PUT_ALL, new PutAllOperationHandler());
+        registerPacketProcessor(CONCURRENT_MAP_BACKUP_PUT_ALL, new BackupPutAllOperationHandler());
+    }
+
+    /**
+     * Registers the factory of the secondary index for the maps whose
+     * names start with the given prefix. Maps that already exist on this
+     * member are indexed as well.
+     */
+    public void registerMapIndexFactory(final String namePrefix, final MapIndexFactory factory) {
+        mapIndexFactories.put(namePrefix, factory);
+        enqueueAndReturn(new Processable() {
+            public void process() {
+                for (CMap cmap : maps.values()) {
+                    if (cmap.index == null && cmap.name.startsWith(namePrefix)) {
+                        cmap.setIndex(factory.createIndex(cmap.name));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Passes the events of the maps whose name starts with namePrefix to the
+     * listener, on the member firing them.
+     */
+    public void registerOwnerEntryListener(String namePrefix, OwnerEntryListener listener) {
+        ownerEntryListeners.put(namePrefix, listener);
+    }
+
+    @Override
+    void fireMapEvent(final Map<Address, Boolean> mapListeners, final String name,
+                      final int eventType, final Data key, final Data value, Map<Address, Boolean> keyListeners) {
+        if (!ownerEntryListeners.isEmpty()) {
+            for (Map.Entry<String, OwnerEntryListener> entry : ownerEntryListeners.entrySet()) {
+                if (name.startsWith(entry.getKey())) {
+                    entry.getValue().entryEvent(name, eventType, key, value);
+                }
+            }
+        }
+        super.fireMapEvent(mapListeners, name, eventType, key, value, keyListeners);
+    }
+
+    /**
+     * Evaluates the criteria against the map index on each member and returns
+     * the matching owned entries. Each member returns at most limit entries and
+     * the remaining members are not asked once limit entries are collected.
+     *
+     * @param limit maximum number of entries wanted, 0 for all of them
+     */
+    public Set<Map.Entry> query(String name, Object criteria, int limit) {
+        MQuery mquery = new MQuery(name, criteria, limit);
+        return (Set<Map.Entry>) mquery.call();
+    }
+
+    /**
+     * Same as {@link #query(String, Object, int)} but only asks this member.
+     */
+    public Set<Map.Entry> queryLocal(String name, Object criteria, int limit) {
+        MQuery mquery = new MQuery(name, criteria, limit);
+        return (Set<Map.Entry>) mquery.callLocal();
+    }
+
+    /**
+     * Same as {@link #query(String, Object, int)} for criteria that only match
+     * entries placed with the given key: asks the owner of the key alone and
+     * falls back to asking every member while the key has no settled owner.
+     */
+    public Set<Map.Entry> queryOwner(String name, Object criteria, int limit, Data partitionKey) {
+        Address owner = getKeyOwner(partitionKey);
+        if (owner != null) {
+            Object result = new MQuery(name, criteria, limit).callOn(owner);
+            if (result != null) {
+                return (Set<Map.Entry>) result;
+            }
+        }
+        return query(name, criteria, limit);
     }
 
     public void reset() {
@@ -266,6 +357,11 @@ public final class ConcurrentMapManager extends BaseManager {
         Collection<CMap> cmaps = maps.values();
         for (final CMap cmap : cmaps) {
             final Object[] records = cmap.mapRecords.values().toArray();
+            if (cmap.offHeapStore != null) {
+                for (Object rec : records) {
+                    ((Record) rec).moveValueToHeap();
+                }
+            }
             cmap.reset();
             for (Object recObj : records) {
                 final Record rec = (Record) recObj;
@@ -367,6 +463,12 @@ public final class ConcurrentMapManager extends BaseManager {
         public boolean containsKey(String name, Object key) {
             return booleanCall(CONCURRENT_MAP_CONTAINS, name, key, null, 0, -1);
         }
+
+        @Override
+        public void setTarget() {
+            super.setTarget();
+            readFromBackup(this);
+        }
     }
 
 
@@ -476,6 +578,42 @@ public final class ConcurrentMapManager extends BaseManager {
             }
             return value;
         }
+
+        /**
+         * Same as get but returns without waiting for the value; inside a
+         * transaction the value is got right away.
+         */
+        public Future getAsync(String name, Object key, ExecutionCallback callback) {
+            if (isTransactional()) {
+                AsyncResult result = new AsyncResult(null, callback);
+                result.complete(get(name, key, -1));
+                return result;
+            }
+            AsyncResult result = new AsyncResult(this, callback);
+            setLocal(CONCURRENT_MAP_GET, name, key, null, -1, -1);
+            doOp();
+            return result;
+        }
+
+        @Override
+        public void setTarget() {
+            super.setTarget();
+            readFromBackup(this);
+        }
+    }
+
+    /**
+     * Points a read at this member when its backup copy of the entry may
+     * answer it, as the read-backup-data mode of the map allows.
+     */
+    void readFromBackup(MTargetAwareOp op) {
+        if (op.target == null || thisAddress.equals(op.target) || op.request.txnId != -1) {
+            return;
+        }
+        CMap cmap = maps.get(op.request.name);
+        if (cmap != null && cmap.canReadBackup(cmap.getRecord(op.request.key))) {
+            op.target = thisAddress;
+        }
     }
 
     class MValueCount extends MTargetAwareOp {
@@ -695,6 +833,49 @@ public final class ConcurrentMapManager extends BaseManager {
             return txnalPut(CONCURRENT_MAP_PUT, name, key, value, timeout);
         }
 
+        /**
+         * Same as put but returns without waiting for the owner and the
+         * backups; inside a transaction the put is made right away.
+         */
+        public Future putAsync(String name, Object key, Object value, ExecutionCallback callback) {
+            return putAsync(name, key, value, callback, null);
+        }
+
+        /**
+         * @param onComplete run once the put is done, before get() or the
+         *                   callback see the result; may be null
+         */
+        public Future putAsync(String name, Object key, Object value, ExecutionCallback callback,
+                               final Runnable onComplete) {
+            if (isTransactional()) {
+                AsyncResult result = new AsyncResult(null, callback);
+                Object oldValue = put(name, key, value, -1);
+                if (onComplete != null) {
+                    onComplete.run();
+                }
+                result.complete(oldValue);
+                return result;
+            }
+            AsyncResult result = new AsyncResult(this, callback) {
+                void onResponse(Object response) {
+                    if (response instanceof AddressAwareException) {
+                        complete(response);
+                    } else {
+                        backupAsync(CONCURRENT_MAP_BACKUP_PUT, this, response);
+                    }
+                }
+
+                void beforeComplete() {
+                    if (onComplete != null) {
+                        onComplete.run();
+                    }
+                }
+            };
+            setLocal(CONCURRENT_MAP_PUT, name, key, value, -1, -1);
+            doOp();
+            return result;
+        }
+
         private Object txnalPut(ClusterOperation operation, String name, Object key, Object value, long timeout) {
             ThreadContext threadContext = ThreadContext.get();
             TransactionImpl txn = threadContext.txn;
@@ -731,6 +912,175 @@ public final class ConcurrentMapManager extends BaseManager {
         }
     }
 
+    /**
+     * Gets the values of many keys with one call per owner instead of one
+     * call per key. Keys without a settled owner and keys their owner did not
+     * serve, because they were on the move, go through MGet one by one.
+     */
+    class MGetAll {
+
+        public Map getAll(String name, Collection keys) {
+            Map result = new HashMap(keys.size());
+            List lsRetries = new ArrayList();
+            if (isTransactional()) {
+                lsRetries.addAll(keys);
+            } else {
+                List<MBulkCall> calls = callOwners(CONCURRENT_MAP_GET_ALL, name, keys, null, lsRetries);
+                for (MBulkCall call : calls) {
+                    EntryBatch response = call.getResponse();
+                    for (int i = 0; i < call.lsKeys.size(); i++) {
+                        if (response == null || response.versions[i] == EntryBatch.RETRY) {
+                            lsRetries.add(call.lsKeys.get(i));
+                        } else {
+                            Data value = response.lsValues.get(i);
+                            if (value != null) {
+                                result.put(call.lsKeys.get(i), toObject(value));
+                            }
+                        }
+                    }
+                }
+            }
+            for (Object key : lsRetries) {
+                Object value = new MGet().get(name, key, -1);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Puts many entries with one call per owner and backs each batch up with
+     * one call per backup member. Entries without a settled owner and
+     * entries their owner did not put, because they were locked or on the
+     * move, go through MPut one by one.
+     */
+    class MPutAll {
+
+        public void putAll(String name, Map map) {
+            List lsRetries = new ArrayList();
+            if (isTransactional()) {
+                lsRetries.addAll(map.keySet());
+            } else {
+                List<MBulkCall> calls = callOwners(CONCURRENT_MAP_PUT_ALL, name, map.keySet(), map, lsRetries);
+                List<MBackup> lsBackups = new ArrayList<MBackup>();
+                for (MBulkCall call : calls) {
+                    EntryBatch response = call.getResponse();
+                    EntryBatch backup = new EntryBatch();
+                    List<Long> lsVersions = new ArrayList<Long>();
+                    for (int i = 0; i < call.lsKeys.size(); i++) {
+                        if (response == null || response.versions[i] == EntryBatch.RETRY) {
+                            lsRetries.add(call.lsKeys.get(i));
+                        } else {
+                            backup.add(call.batch.lsKeys.get(i), call.batch.lsValues.get(i));
+                            lsVersions.add(response.versions[i]);
+                        }
+                    }
+                    if (call.backupCount > 0 && lsVersions.size() > 0) {
+                        backup.versions = new long[lsVersions.size()];
+                        for (int i = 0; i < backup.versions.length; i++) {
+                            backup.versions[i] = lsVersions.get(i);
+                        }
+                        Request reqBackup = new Request();
+                        reqBackup.setLocal(CONCURRENT_MAP_BACKUP_PUT_ALL, name, null, toData(backup),
+                                -1, -1, -1, thisAddress);
+                        for (int distance = 1; distance <= call.backupCount; distance++) {
+                            MBackup backupOp = new MBackup();
+                            backupOp.sendBackup(CONCURRENT_MAP_BACKUP_PUT_ALL, call.target,
+                                    (distance < call.backupCount), distance, reqBackup);
+                            lsBackups.add(backupOp);
+                        }
+                    }
+                }
+                for (MBackup backupOp : lsBackups) {
+                    backupOp.getResultAsBoolean();
+                }
+            }
+            for (Object key : lsRetries) {
+                new MPut().put(name, key, map.get(key), -1);
+            }
+        }
+    }
+
+    private boolean isTransactional() {
+        TransactionImpl txn = ThreadContext.get().txn;
+        return txn != null && txn.getStatus() == Transaction.TXN_STATUS_ACTIVE;
+    }
+
+    /**
+     * Groups the keys by owner and sends every owner its batch, without
+     * waiting for the answers. Keys without a settled owner are added to
+     * lsRetries.
+     *
+     * @param map the values to put with the keys, null for a get
+     */
+    private List<MBulkCall> callOwners(ClusterOperation operation, String name, Collection keys,
+                                       Map map, List lsRetries) {
+        Map<Address, MBulkCall> calls = new HashMap<Address, MBulkCall>();
+        for (Object key : keys) {
+            Data keyData = toData(key);
+            Address owner = getKeyOwner(keyData);
+            if (owner == null) {
+                lsRetries.add(key);
+            } else {
+                MBulkCall call = calls.get(owner);
+                if (call == null) {
+                    call = new MBulkCall(owner);
+                    calls.put(owner, call);
+                }
+                call.lsKeys.add(key);
+                call.batch.add(keyData, (map == null) ? null : toData(map.get(key)));
+            }
+        }
+        for (MBulkCall call : calls.values()) {
+            call.send(operation, name);
+        }
+        return new ArrayList<MBulkCall>(calls.values());
+    }
+
+    class MBulkCall extends MigrationAwareTargettedCall {
+        // the keys of the caller, in the order of the batch
+        final List lsKeys = new ArrayList();
+        final EntryBatch batch = new EntryBatch();
+        int backupCount = 0;
+
+        MBulkCall(Address target) {
+            this.target = target;
+        }
+
+        void send(ClusterOperation operation, String name) {
+            request.reset();
+            setLocal(operation, name, null, batch, -1, -1);
+            doOp();
+        }
+
+        /**
+         * @return the answer of the owner, null if it asked to redo
+         */
+        EntryBatch getResponse() {
+            ClusterOperation operation = request.operation;
+            Object result = getResultAsObject();
+            if (result instanceof AddressAwareException) {
+                rethrowException(operation, (AddressAwareException) result);
+            }
+            return (result == OBJECT_REDO) ? null : (EntryBatch) result;
+        }
+
+        @Override
+        void handleNoneRedoResponse(Packet packet) {
+            request.longValue = packet.longValue;
+            super.handleNoneRedoResponse(packet);
+        }
+
+        @Override
+        protected void afterGettingResult(Request request) {
+            // the owner answers a put with the backup count of the map
+            backupCount = (int) Math.max(0, request.longValue);
+            super.afterGettingResult(request);
+        }
+    }
+
     class MRemoveMulti extends MBackupAwareOp {
 
         boolean remove(String name, Object key, Object value) {
@@ -778,6 +1128,31 @@ public final class ConcurrentMapManager extends BaseManager {
             }
         }
 
+        /**
+         * Sends the backups without waiting for them, the result is completed
+         * with the response once all of them are done. Called on the service thread.
+         */
+        protected void backupAsync(ClusterOperation operation, final AsyncResult result, final Object response) {
+            final int count = backupCount;
+            if (count == 0) {
+                result.complete(response);
+                return;
+            }
+            final AtomicInteger pending = new AtomicInteger(count);
+            for (int i = 0; i < count; i++) {
+                int distance = i + 1;
+                MBackup backupOp = new MBackup();
+                new AsyncResult(backupOp, null) {
+                    void onResponse(Object backupResponse) {
+                        if (pending.decrementAndGet() == 0) {
+                            result.complete(response);
+                        }
+                    }
+                };
+                backupOp.sendBackup(operation, target, (distance < count), distance, reqBackup);
+            }
+        }
+
         void prepareForBackup() {
             reqBackup.reset();
             backupCount = 0;
@@ -849,13 +1224,83 @@ public final class ConcurrentMapManager extends BaseManager {
 
     void fireMapEvent(final Map<Address, Boolean> mapListeners, final String name,
                       final int eventType, final Record record) {
-        fireMapEvent(mapListeners, name, eventType, record.key, record.value, record.mapListeners);
+        fireMapEvent(mapListeners, name, eventType, record.key, record.getValue(), record.mapListeners);
     }
 
     public Address getKeyOwner(Data key) {
         return getTarget(key);
     }
 
+    /**
+     * Evicts the record if this member owns it. Must not be called
+     * from the service thread.
+     */
+    public boolean evict(String name, Object key) {
+        MEvict mevict = new MEvict();
+        return mevict.evict(name, key);
+    }
+
+    /**
+     * Rewrites the values of the given records this member owns in one step
+     * on the service thread instead of a lock, get, put and unlock per record;
+     * no other operation on the records runs in between. The new values are
+     * indexed, fire the updated event and are sent to the backups. Records
+     * missing, locked, migrating or owned by another member are left as they
+     * are. Must not be called from the service thread.
+     *
+     * @return the keys of the records updated
+     */
+    public List<Data> updateLocal(final String name, final List<Data> keys, final RecordUpdater updater) {
+        final BlockingQueue<List<Data>> result = new ArrayBlockingQueue<List<Data>>(1);
+        enqueueAndReturn(new Processable() {
+            public void process() {
+                List<Data> updated = Collections.emptyList();
+                try {
+                    CMap cmap = maps.get(name);
+                    if (cmap != null) {
+                        updated = cmap.updateAll(keys, updater);
+                    }
+                } finally {
+                    result.offer(updated);
+                }
+            }
+        });
+        try {
+            return result.take();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public long getEvictedCount(String name) {
+        CMap cmap = maps.get(name);
+        return (cmap == null) ? 0 : cmap.evictedCount;
+    }
+
+    /**
+     * @return the entries the map still has to evict on this member, once over its max size
+     */
+    public int getEvictionBacklog(String name) {
+        CMap cmap = maps.get(name);
+        return (cmap == null) ? 0 : cmap.evictionBacklog;
+    }
+
+    /**
+     * @return how long the oldest entry due for eviction on this member has been waiting
+     */
+    public long getEvictionLagMillis(String name) {
+        CMap cmap = maps.get(name);
+        return (cmap == null) ? 0 : cmap.evictionLagMillis;
+    }
+
+    /**
+     * @return how many gets this member answered from its backup copies
+     */
+    public long getBackupReadCount(String name) {
+        CMap cmap = maps.get(name);
+        return (cmap == null) ? 0 : cmap.backupReadCount;
+    }
+
 
     public class MContainsValue extends MultiCall {
         boolean contains = false;
@@ -988,39 +1433,91 @@ public final class ConcurrentMapManager extends BaseManager {
         }
     }
 
-    public class MIterate extends MultiCall {
-        Entries entries = null;
-
+    public class MIterate {
         final String name;
         final ClusterOperation operation;
+        final int fetchSize;
 
         public MIterate(String name, ClusterOperation operation) {
+            this(name, operation, ITERATION_FETCH_SIZE);
+        }
+
+        public MIterate(String name, ClusterOperation operation, int fetchSize) {
             this.name = name;
             this.operation = operation;
+            this.fetchSize = fetchSize;
+        }
+
+        Object call() {
+            return new PagedEntries(name, operation, fetchSize);
+        }
+    }
+
+    public class MQuery extends MultiCall {
+        Entries entries = null;
+
+        final String name;
+        final Object criteria;
+        final int limit;
+
+        public MQuery(String name, Object criteria, int limit) {
+            this.name = name;
+            this.criteria = criteria;
+            this.limit = limit;
         }
 
         TargetAwareOp createNewTargetAwareOp(Address target) {
-            return new MGetEntries(target);
+            return new MQueryKeys(target);
         }
 
         void onCall() {
-            entries = new Entries(name, operation);
+            entries = new Entries(name, CONCURRENT_MAP_ITERATE_ENTRIES);
         }
 
         boolean onResponse(Object response) {
             entries.addEntries((Pairs) response);
-            return true;
+            return limit <= 0 || entries.size() < limit;
         }
 
         Object returnResult() {
             return entries;
         }
 
-        class MGetEntries extends MigrationAwareTargettedCall {
-            public MGetEntries(Address target) {
+        Object callLocal() {
+            while (true) {
+                Object result = callOn(thisAddress);
+                if (result != null) {
+                    return result;
+                }
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    return returnResult();
+                }
+            }
+        }
+
+        /**
+         * @return the entries of the target, or null if it asked to redo
+         */
+        Object callOn(Address target) {
+            onCall();
+            TargetAwareOp targetCall = createNewTargetAwareOp(target);
+            targetCall.doOp();
+            Object result = targetCall.getResultAsObject();
+            if (result == OBJECT_REDO) {
+                return null;
+            }
+            onResponse(result);
+            return returnResult();
+        }
+
+        class MQueryKeys extends MigrationAwareTargettedCall {
+            public MQueryKeys(Address target) {
                 this.target = target;
                 request.reset();
-                setLocal(operation, name);
+                setLocal(CONCURRENT_MAP_QUERY, name, null, criteria, -1, -1);
+                request.longValue = limit;
             }
         }
     }
@@ -1052,10 +1549,15 @@ public final class ConcurrentMapManager extends BaseManager {
     }
 
     private int getBlockId(Data key) {
-        int hash = key.hashCode();
+        int hash = key.getPartitionHash();
         return Math.abs(hash) % BLOCK_COUNT;
     }
 
+    boolean isOwnedForSure(Data key) {
+        Block block = blocks[getBlockId(key)];
+        return block != null && !block.isMigrating() && thisAddress.equals(block.owner);
+    }
+
     Block getOrCreateBlock(Data key) {
         return getOrCreateBlock(getBlockId(key));
     }
@@ -1074,6 +1576,12 @@ public final class ConcurrentMapManager extends BaseManager {
         if (map == null) {
             map = new CMap(name);
             maps.put(name, map);
+            for (Map.Entry<String, MapIndexFactory> entry : mapIndexFactories.entrySet()) {
+                if (name.startsWith(entry.getKey())) {
+                    map.setIndex(entry.getValue().createIndex(name));
+                    break;
+                }
+            }
         }
         return map;
     }
@@ -1184,8 +1692,8 @@ public final class ConcurrentMapManager extends BaseManager {
         request.longValue = record.copyCount;
         if (includeKeyValue) {
             request.key = doHardCopy(record.getKey());
-            if (record.getValue() != null) {
-                request.value = doHardCopy(record.getValue());
+            if (record.hasValue()) {
+                request.value = record.getValueCopy();
             }
         }
     }
@@ -1279,7 +1787,14 @@ public final class ConcurrentMapManager extends BaseManager {
         public void handle(Request request) {
             CMap cmap = getMap(request.name);
             Record record = cmap.getRecord(request.key);
-            if (record == null && cmap.loader != null) {
+            if (record != null && record.holdCount > 0 && !record.hasValue() && cmap.loader != null) {
+                // a batch is loading or storing the entry
+                if (request.hasEnoughTimeToSchedule()) {
+                    schedule(request);
+                } else {
+                    onNoTimeToSchedule(request);
+                }
+            } else if (record == null && cmap.loader != null) {
                 executeLoadStore(request);
             } else {
                 doOperation(request);
@@ -1298,16 +1813,207 @@ public final class ConcurrentMapManager extends BaseManager {
             } else {
                 if (request.value != null) {
                     Record record = ensureRecord(request);
-                    if (record.value == null) {
-                        record.value = request.value;
+                    if (!record.hasValue()) {
+                        record.setValue(request.value);
+                        getMap(request.name).updateIndex(record);
                     }
-                    request.response = doHardCopy(record.value);
+                    request.response = record.getValueCopy();
                 }
             }
             returnResponse(request);
         }
     }
 
+    /**
+     * Serves the keys of a batch this member owns for sure and loads the
+     * missing ones with one MapLoader.loadAll call on an executor thread.
+     * The keys loaded are held meanwhile, so a put or remove of one of them
+     * waits instead of going to the MapStore before the load. Keys with a
+     * load or store of their own under way, or held by another batch, are
+     * left to the caller to get one by one.
+     */
+    class GetAllOperationHandler extends MigrationAwareOperationHandler {
+        public void handle(final Request request) {
+            final CMap cmap = getMap(request.name);
+            final EntryBatch batch = (EntryBatch) toObject(request.value);
+            request.value = null;
+            final EntryBatch response = new EntryBatch();
+            response.versions = new long[batch.lsKeys.size()];
+            final List<Integer> lsToLoad = new ArrayList<Integer>();
+            for (int i = 0; i < batch.lsKeys.size(); i++) {
+                Data key = batch.lsKeys.get(i);
+                Record record = cmap.getRecord(key);
+                Data value = null;
+                if (!isOwnedForSure(key)) {
+                    response.versions[i] = EntryBatch.RETRY;
+                } else if (cmap.loader != null && (record == null || !record.hasValue())
+                        && (cmap.isLoadStoreInFlight(key) || (record != null && record.holdCount > 0))) {
+                    response.versions[i] = EntryBatch.RETRY;
+                } else if (cmap.loader != null && record == null) {
+                    cmap.hold(key);
+                    lsToLoad.add(i);
+                } else {
+                    value = cmap.get(key);
+                }
+                response.lsValues.add(value);
+            }
+            if (lsToLoad.size() == 0) {
+                request.response = toData(response);
+                returnResponse(request);
+                return;
+            }
+            executeLocally(new Runnable() {
+                public void run() {
+                    final Data[] loaded = new Data[lsToLoad.size()];
+                    try {
+                        List<Object> keys = new ArrayList<Object>(lsToLoad.size());
+                        for (Integer i : lsToLoad) {
+                            keys.add(toObject(batch.lsKeys.get(i), false));
+                        }
+                        Map values = cmap.loader.loadAll(keys);
+                        if (values != null) {
+                            for (int i = 0; i < loaded.length; i++) {
+                                Object value = values.get(keys.get(i));
+                                if (value != null) {
+                                    loaded[i] = toData(value);
+                                }
+                            }
+                        }
+                    } catch (Exception e) {
+                        request.response = toData(new AddressAwareException(e, thisAddress));
+                    }
+                    enqueueAndReturn(new Processable() {
+                        public void process() {
+                            for (int j = 0; j < loaded.length; j++) {
+                                int i = lsToLoad.get(j);
+                                Data key = batch.lsKeys.get(i);
+                                cmap.release(key);
+                                if (request.response != null) {
+                                    continue;
+                                }
+                                if (!isOwnedForSure(key)) {
+                                    response.versions[i] = EntryBatch.RETRY;
+                                } else if (loaded[j] != null) {
+                                    response.lsValues.set(i, cmap.putLoaded(key, loaded[j]));
+                                }
+                            }
+                            if (request.response == null) {
+                                request.response = toData(response);
+                            }
+                            returnResponse(request);
+                            for (Integer i : lsToLoad) {
+                                cmap.fireReleased(batch.lsKeys.get(i));
+                            }
+                        }
+                    });
+                }
+            });
+        }
+
+        void doOperation(Request request) {
+        }
+    }
+
+    /**
+     * Puts the entries of a batch this member owns for sure and may lock.
+     * A write-through map first stores them with one MapStore.storeAll call
+     * on an executor thread, holding their keys meanwhile so no other
+     * operation on them gets in between, and puts them once the store
+     * returns. A failing store puts nothing and is thrown to the caller.
+     * Keys with a load or store of their own under way are left to the
+     * caller to put one by one, behind it. Answers with the versions of the
+     * records for the backups and, in the long value, the backup count of
+     * the map.
+     */
+    class PutAllOperationHandler extends MigrationAwareOperationHandler {
+        public void handle(final Request request) {
+            final CMap cmap = getMap(request.name);
+            final EntryBatch batch = (EntryBatch) toObject(request.value);
+            request.value = null;
+            request.longValue = (lsMembers.size() > 1) ? Math.min(cmap.getBackupCount(), lsMembers.size()) : 0;
+            final EntryBatch response = new EntryBatch();
+            response.versions = new long[batch.lsKeys.size()];
+            for (int i = 0; i < batch.lsKeys.size(); i++) {
+                if (!cmap.canPut(batch.lsKeys.get(i), request)) {
+                    response.versions[i] = EntryBatch.RETRY;
+                }
+            }
+            if (cmap.store == null || cmap.writeDelaySeconds != 0) {
+                cmap.putAll(batch, request, response.versions);
+                request.response = toData(response);
+                returnResponse(request);
+                return;
+            }
+            final int size = batch.lsKeys.size();
+            final boolean[] held = new boolean[size];
+            int heldCount = 0;
+            for (int i = 0; i < size; i++) {
+                Data key = batch.lsKeys.get(i);
+                if (response.versions[i] == EntryBatch.RETRY) {
+                    continue;
+                }
+                if (cmap.isLoadStoreInFlight(key)) {
+                    response.versions[i] = EntryBatch.RETRY;
+                } else {
+                    cmap.hold(key);
+                    held[i] = true;
+                    heldCount++;
+                }
+            }
+            if (heldCount == 0) {
+                request.response = toData(response);
+                returnResponse(request);
+                return;
+            }
+            executeLocally(new Runnable() {
+                public void run() {
+                    try {
+                        Map entries = new HashMap();
+                        for (int i = 0; i < size; i++) {
+                            if (held[i]) {
+                                entries.put(toObject(batch.lsKeys.get(i), false), toObject(batch.lsValues.get(i), false));
+                            }
+                        }
+                        cmap.store.storeAll(entries);
+                    } catch (Exception e) {
+                        request.response = toData(new AddressAwareException(e, thisAddress));
+                    }
+                    enqueueAndReturn(new Processable() {
+                        public void process() {
+                            for (int i = 0; i < size; i++) {
+                                if (held[i]) {
+                                    cmap.release(batch.lsKeys.get(i));
+                                }
+                            }
+                            if (request.response == null) {
+                                cmap.putAll(batch, request, response.versions);
+                                request.response = toData(response);
+                            }
+                            returnResponse(request);
+                            for (int i = 0; i < size; i++) {
+                                if (held[i]) {
+                                    cmap.fireReleased(batch.lsKeys.get(i));
+                                }
+                            }
+                        }
+                    });
+                }
+            });
+        }
+
+        void doOperation(Request request) {
+        }
+    }
+
+    class BackupPutAllOperationHandler extends AbstractOperationHandler {
+        void doOperation(Request request) {
+            CMap cmap = getMap(request.name);
+            cmap.backupAll((EntryBatch) toObject(request.value));
+            request.value = null;
+            request.response = Boolean.TRUE;
+        }
+    }
+
     class ValueCountOperationHandler extends MTargetAwareOperationHandler {
         void doOperation(Request request) {
             CMap cmap = getMap(request.name);
@@ -1331,6 +2037,13 @@ public final class ConcurrentMapManager extends BaseManager {
         }
     }
 
+    class QueryOperationHandler extends MigrationAwareOperationHandler {
+        void doOperation(Request request) {
+            CMap cmap = getMap(request.name);
+            cmap.query(request);
+        }
+    }
+
     class MigrationOperationHandler extends AbstractOperationHandler {
         void doOperation(Request request) {
             CMap cmap = getMap(request.name);
@@ -1376,7 +2089,7 @@ public final class ConcurrentMapManager extends BaseManager {
         void doOperation(Request request) {
             Record rec = ensureRecord(request);
             if (request.operation == CONCURRENT_MAP_LOCK_RETURN_OLD) {
-                request.value = doHardCopy(rec.getValue());
+                request.value = rec.getValueCopy();
             }
             rec.lock(request.lockThreadId, request.lockAddress);
             rec.version++;
@@ -1433,6 +2146,7 @@ public final class ConcurrentMapManager extends BaseManager {
     abstract class StoreAwareOperationHandler extends SchedulableOperationHandler {
 
         protected void executeLoadStore(Request request) {
+            getMap(request.name).startLoadStore(request.key);
             LoadStoreFork loadStoreFork = loadStoreForks[getBlockId(request.key)];
             int size = loadStoreFork.offer(request);
             if (size == 1) {
@@ -1533,6 +2247,7 @@ public final class ConcurrentMapManager extends BaseManager {
         public void process() {
             final Request request = qResponses.poll();
             if (request != null) {
+                maps.get(request.name).endLoadStore(request.key);
                 //store the entry
                 StoreAwareOperationHandler oh = (StoreAwareOperationHandler) getPacketProcessor(request.operation);
                 oh.afterLoadStore(request);
@@ -1562,6 +2277,9 @@ public final class ConcurrentMapManager extends BaseManager {
     class CMap {
         final Set<Record> setRemovedRecords = new HashSet<Record>(1000);
 
+        // keys with a load or store in their LoadStoreFork, and how many
+        final Map<Data, Integer> mapLoadStoresInFlight = new HashMap<Data, Integer>();
+
         final SortedHashMap<Data, Record> mapRecords;
 
         final String name;
@@ -1586,7 +2304,14 @@ public final class ConcurrentMapManager extends BaseManager {
 
         int writeDelaySeconds = -1;
 
-        boolean evicting = false;
+        // eviction metrics, written by the service thread
+        volatile long evictedCount = 0;
+
+        volatile int evictionBacklog = 0;
+
+        volatile long evictionLagMillis = 0;
+
+        long evictionRoundStart = 0;
 
         int ownedEntryCount = 0;
 
@@ -1594,7 +2319,17 @@ public final class ConcurrentMapManager extends BaseManager {
 
         private final long removeDelayMillis;
 
-        public CMap(String name) {
+        MapIndex index = null;
+
+        // holds the values when the map is configured OFFHEAP
+        final OffHeapStore offHeapStore;
+
+        // how long the owner may have been silent for a backup copy to answer reads, -1 if it may not
+        final long readBackupMaxLagMillis;
+
+        volatile long backupReadCount = 0;
+
+        public CMap(String name) {
             super();
             this.name = name;
             mapRecords = new SortedHashMap<Data, Record>(10000);
@@ -1614,6 +2349,26 @@ public final class ConcurrentMapManager extends BaseManager {
                 maxSize = (mapConfig.getMaxSize() == 0) ? MapConfig.DEFAULT_MAX_SIZE : mapConfig.getMaxSize();
             }
             evictionRate = mapConfig.getEvictionPercentage() / 100f;
+            if ("OFFHEAP".equalsIgnoreCase(mapConfig.getStorageType())) {
+                offHeapStore = new OffHeapStore(ConfigProperty.MAP_OFFHEAP_SLAB_SIZE.getInteger());
+            } else {
+                offHeapStore = null;
+            }
+            String readBackupData = mapConfig.getReadBackupData();
+            if (evictionPolicy != OrderingType.NONE) {
+                // the owner orders the eviction by the accesses it sees, a backup read would not be one
+                if ("UNBOUNDED_LAG".equalsIgnoreCase(readBackupData) || "BOUNDED_LAG".equalsIgnoreCase(readBackupData)) {
+                    logger.log(Level.WARNING, "Map " + name + " reads from the owner only, as it has "
+                            + evictionPolicy + " eviction");
+                }
+                readBackupMaxLagMillis = -1;
+            } else if ("UNBOUNDED_LAG".equalsIgnoreCase(readBackupData)) {
+                readBackupMaxLagMillis = Long.MAX_VALUE;
+            } else if ("BOUNDED_LAG".equalsIgnoreCase(readBackupData)) {
+                readBackupMaxLagMillis = mapConfig.getReadBackupMaxLagMillis();
+            } else {
+                readBackupMaxLagMillis = -1;
+            }
             instanceType = getInstanceType(name);
             MapStoreConfig mapStoreConfig = mapConfig.getMapStoreConfig();
             if (mapStoreConfig != null) {
@@ -1651,6 +2406,42 @@ public final class ConcurrentMapManager extends BaseManager {
             return backupCount;
         }
 
+        /**
+         * Whether this member may answer a read of the key from its backup
+         * copy instead of asking the owner: the copy must have every backup
+         * of the entry applied in order, the entry must not be locked or
+         * migrating and, for BOUNDED_LAG, the owner must have been heard from
+         * lately. The packets of the owner are processed in the order it sent
+         * them, so the copy then holds every write the owner completed before
+         * its last packet. Nothing is compared with the owner's copy: without
+         * BOUNDED_LAG a read may miss writes for as long as their backups take.
+         */
+        boolean canReadBackup(Record record) {
+            if (readBackupMaxLagMillis < 0 || record == null) {
+                return false;
+            }
+            Block block = blocks[record.blockId];
+            if (block == null || block.owner == null || block.isMigrating() || thisAddress.equals(block.owner)) {
+                return false;
+            }
+            if (record.lockCount > 0 || (record.backupOps != null && record.backupOps.size() > 0) || !record.isValid()) {
+                return false;
+            }
+            boolean backup = false;
+            for (int distance = 1; distance <= backupCount && !backup; distance++) {
+                MemberImpl member = getNextMemberAfter(block.owner, true, distance);
+                backup = (member != null && thisAddress.equals(member.getAddress()));
+            }
+            if (!backup) {
+                return false;
+            }
+            if (readBackupMaxLagMillis != Long.MAX_VALUE) {
+                MemberImpl owner = getMember(block.owner);
+                return owner != null && System.currentTimeMillis() - owner.getLastRead() <= readBackupMaxLagMillis;
+            }
+            return true;
+        }
+
         public void own(Request req) {
             if (req.value == null) {
                 req.value = new Data();
@@ -1704,9 +2495,7 @@ public final class ConcurrentMapManager extends BaseManager {
             } else if (req.operation == CONCURRENT_MAP_BACKUP_REMOVE) {
                 Record record = getRecord(req.key);
                 if (record != null) {
-                    if (record.value != null) {
-                        record.value.setNoData();
-                    }
+                    record.clearValue();
                     if (record.lsValues != null) {
                         for (Data value : record.lsValues) {
                             value.setNoData();
@@ -1715,7 +2504,7 @@ public final class ConcurrentMapManager extends BaseManager {
                     if (record.copyCount > 0) {
                         record.decrementCopyCount();
                     }
-                    record.value = null;
+                    updateIndex(record);
                     if (record.isRemovable()) {
                         removeAndPurgeRecord(record);
                     }
@@ -1807,7 +2596,7 @@ public final class ConcurrentMapManager extends BaseManager {
                     return false;
                 } else {
                     Block block = blocks[record.blockId];
-                    if (thisAddress.equals(block.owner)) {
+                    if (thisAddress.equals(block.owner) || canReadBackup(record)) {
                         touch(record);
                         if (value == null) {
                             return record.valueCount() > 0;
@@ -1830,46 +2619,124 @@ public final class ConcurrentMapManager extends BaseManager {
             return false;
         }
 
+        /**
+         * Returns the next page of the owned entries, values included unless
+         * only keys are iterated. The recordId is the position to continue
+         * the walk of the records from, 0 for the first page, and the page
+         * carries the position of the next one, 0 after the last. Nothing is
+         * kept between pages: entries present for the whole iteration are
+         * returned once, entries added, removed or migrated meanwhile may or
+         * may not be. ITERATION_COUNT as the fetch size only counts the
+         * entries.
+         */
         public void getEntries(Request request) {
-            Collection<Record> colRecords = mapRecords.values();
-            Pairs pairs = new Pairs();
             long now = System.currentTimeMillis();
-            for (Record record : colRecords) {
-                if (record.isValid(now)) {
-                    if (record.key == null || record.key.size() == 0) {
-                        throw new RuntimeException("Key cannot be null or zero-size: " + record.key);
+            if (request.longValue == ITERATION_COUNT) {
+                request.response = (long) countEntries(request.operation, now);
+                return;
+            }
+            int fetchSize = (request.longValue > 0) ? (int) request.longValue : ITERATION_FETCH_SIZE;
+            int cursor = (int) request.recordId;
+            EntriesPage page = new EntriesPage();
+            boolean withValues = (request.operation == CONCURRENT_MAP_ITERATE_ENTRIES
+                    || request.operation == CONCURRENT_MAP_ITERATE_VALUES);
+            List<Record> lsRecords = new ArrayList<Record>();
+            do {
+                lsRecords.clear();
+                cursor = mapRecords.scan(cursor, lsRecords, (int) (fetchSize - page.size()));
+                for (Record record : lsRecords) {
+                    if (!thisAddress.equals(blocks[record.blockId].owner)) {
+                        continue;
                     }
-                    Block block = blocks[record.blockId];
-                    if (thisAddress.equals(block.owner)) {
-                        if (record.value != null || request.operation == CONCURRENT_MAP_ITERATE_KEYS_ALL) {
-                            pairs.addKeyValue(new KeyValue(record.key, null));
+                    if (record.isValid(now)) {
+                        if (record.hasValue() || request.operation == CONCURRENT_MAP_ITERATE_KEYS_ALL) {
+                            Data value = (withValues && record.hasValue()) ? record.getValueCopy() : null;
+                            page.addKeyValue(new KeyValue(record.key, value));
                         } else if (record.copyCount > 0) {
                             for (int i = 0; i < record.copyCount; i++) {
-                                pairs.addKeyValue(new KeyValue(record.key, null));
+                                page.addKeyValue(new KeyValue(record.key, null));
                             }
                         } else if (record.lsValues != null) {
                             int size = record.lsValues.size();
                             if (size > 0) {
                                 if (request.operation == CONCURRENT_MAP_ITERATE_KEYS) {
-                                    pairs.addKeyValue(new KeyValue(record.key, null));
+                                    page.addKeyValue(new KeyValue(record.key, null));
                                 } else {
                                     for (int i = 0; i < size; i++) {
                                         Data value = record.lsValues.get(i);
-                                        pairs.addKeyValue(new KeyValue(record.key, value));
+                                        page.addKeyValue(new KeyValue(record.key, value));
                                     }
                                 }
                             }
                         }
+                    } else {
+                        if (!record.isEvictable()) {
+                            scheduleForEviction(record);
+                        }
                     }
-                } else {
-                    if (!record.isEvictable()) {
-                        scheduleForEviction(record);
+                }
+            } while (cursor != 0 && page.size() < fetchSize);
+            page.cursor = cursor;
+            Data dataEntries = toData(page);
+            request.longValue = page.size();
+            request.response = dataEntries;
+        }
+
+        /**
+         * The number of entries a full iteration would return, without
+         * taking a snapshot.
+         */
+        private int countEntries(ClusterOperation operation, long now) {
+            int count = 0;
+            for (Record record : mapRecords.values()) {
+                if (!record.isValid(now) || !thisAddress.equals(blocks[record.blockId].owner)) {
+                    continue;
+                }
+                if (record.hasValue() || operation == CONCURRENT_MAP_ITERATE_KEYS_ALL) {
+                    count++;
+                } else if (record.copyCount > 0) {
+                    count += record.copyCount;
+                } else if (record.lsValues != null) {
+                    int size = record.lsValues.size();
+                    if (size > 0) {
+                        count += (operation == CONCURRENT_MAP_ITERATE_KEYS) ? 1 : size;
                     }
                 }
             }
-            Data dataEntries = toData(pairs);
+            return count;
+        }
+
+        public void query(Request request) {
+            Object criteria = toObject(request.value);
+            request.value = null;
+            int limit = (int) request.longValue;
+            Collection<Data> keys = (index == null) ? null : index.query(criteria);
+            Pairs pairs = new Pairs();
+            long now = System.currentTimeMillis();
+            if (keys == null) {
+                for (Record record : mapRecords.values()) {
+                    if (!addIfOwned(pairs, record, now, limit)) break;
+                }
+            } else {
+                for (Data key : keys) {
+                    if (!addIfOwned(pairs, getRecord(key), now, limit)) break;
+                }
+            }
             request.longValue = pairs.size();
-            request.response = dataEntries;
+            request.response = toData(pairs);
+        }
+
+        /**
+         * @return false if the limit is reached
+         */
+        private boolean addIfOwned(Pairs pairs, Record record, long now, int limit) {
+            if (record != null && record.hasValue() && record.isValid(now)) {
+                Block block = blocks[record.blockId];
+                if (thisAddress.equals(block.owner)) {
+                    pairs.addKeyValue(new KeyValue(record.key, record.getValue()));
+                }
+            }
+            return limit <= 0 || pairs.size() < limit;
         }
 
         public CMapEntry getMapEntry(Request req) {
@@ -1884,7 +2751,16 @@ public final class ConcurrentMapManager extends BaseManager {
         }
 
         public Data get(Request req) {
-            Record record = getRecord(req.key);
+            Data returnValue = get(req.key);
+            if (returnValue != null) {
+                req.key.setNoData();
+                req.key = null;
+            }
+            return returnValue;
+        }
+
+        Data get(Data key) {
+            Record record = getRecord(key);
             if (record == null)
                 return null;
             if (!record.isValid()) {
@@ -1895,22 +2771,130 @@ public final class ConcurrentMapManager extends BaseManager {
             }
             record.setLastAccessed();
             touch(record);
-            Data data = record.getValue();
+            Block block = blocks[record.blockId];
+            if (block != null && !thisAddress.equals(block.owner)) {
+                backupReadCount++;
+            }
             Data returnValue = null;
-            if (data != null) {
-                returnValue = doHardCopy(data);
+            if (record.hasValue()) {
+                returnValue = record.getValueCopy();
             } else {
                 if (record.lsValues != null) {
                     Values values = new Values(record.lsValues);
                     returnValue = toData(values);
                 }
             }
-            if (returnValue != null) {
-                req.key.setNoData();
-                req.key = null;
+            return returnValue;
+        }
+
+        /**
+         * Keeps the value a MapLoader loaded, unless the entry got a value
+         * meanwhile, and returns the value of the entry.
+         */
+        Data putLoaded(Data key, Data value) {
+            Record record = getRecord(key);
+            if (record == null) {
+                record = createNewRecord(key, value);
+            } else if (!record.hasValue()) {
+                record.setValue(value);
+                updateIndex(record);
             }
+            return record.getValueCopy();
+        }
 
-            return returnValue;
+        void startLoadStore(Data key) {
+            Integer count = mapLoadStoresInFlight.get(key);
+            mapLoadStoresInFlight.put(key, (count == null) ? 1 : count + 1);
+        }
+
+        void endLoadStore(Data key) {
+            Integer count = mapLoadStoresInFlight.remove(key);
+            if (count != null && count > 1) {
+                mapLoadStoresInFlight.put(key, count - 1);
+            }
+        }
+
+        boolean isLoadStoreInFlight(Data key) {
+            return mapLoadStoresInFlight.containsKey(key);
+        }
+
+        /**
+         * Holds the record of the key, creating an empty one if needed, so
+         * the operations that wait for a lock wait for the batch loading or
+         * storing it outside the LoadStoreFork of its block.
+         */
+        void hold(Data key) {
+            Record record = getRecord(key);
+            if (record == null) {
+                record = createNewRecord(key, null);
+            } else {
+                markAsActive(record);
+            }
+            record.holdCount++;
+        }
+
+        void release(Data key) {
+            Record record = getRecord(key);
+            if (record != null && record.holdCount > 0) {
+                record.holdCount--;
+            }
+        }
+
+        /**
+         * Runs the operations that waited for the released record, as long
+         * as none of them locks or holds it again, and removes the record
+         * if it was created empty and stayed so.
+         */
+        void fireReleased(Data key) {
+            Record record = getRecord(key);
+            if (record == null) {
+                return;
+            }
+            while (record.lsScheduledActions != null && record.lsScheduledActions.size() > 0
+                    && record.lockCount == 0 && record.holdCount == 0) {
+                int scheduled = record.lsScheduledActions.size();
+                record.fireScheduledActions();
+                if (record.lsScheduledActions != null && record.lsScheduledActions.size() >= scheduled) {
+                    break;
+                }
+            }
+            if (record.lockCount == 0 && record.holdCount == 0 && record.isRemovable()) {
+                markAsRemoved(record);
+            }
+        }
+
+        boolean canPut(Data key, Request req) {
+            Record record = getRecord(key);
+            return isOwnedForSure(key) && (record == null || record.testLock(req.lockThreadId, req.lockAddress));
+        }
+
+        /**
+         * Puts the entries of the batch not marked RETRY and sets their
+         * versions; entries that moved or got locked meanwhile are marked RETRY.
+         */
+        void putAll(EntryBatch batch, Request req, long[] versions) {
+            for (int i = 0; i < versions.length; i++) {
+                Data key = batch.lsKeys.get(i);
+                if (versions[i] == EntryBatch.RETRY || !canPut(key, req)) {
+                    versions[i] = EntryBatch.RETRY;
+                } else {
+                    Request reqPut = new Request();
+                    reqPut.setLocal(CONCURRENT_MAP_PUT, name, key, batch.lsValues.get(i), -1, -1, -1, thisAddress);
+                    put(reqPut);
+                    versions[i] = reqPut.version;
+                }
+            }
+        }
+
+        void backupAll(EntryBatch batch) {
+            for (int i = 0; i < batch.lsKeys.size(); i++) {
+                Request req = new Request();
+                req.setLocal(CONCURRENT_MAP_BACKUP_PUT, name, batch.lsKeys.get(i), batch.lsValues.get(i),
+                        -1, -1, -1, thisAddress);
+                req.version = batch.versions[i];
+                req.longValue = 0;
+                backup(req);
+            }
         }
 
         public boolean add(Request req) {
@@ -1954,7 +2938,7 @@ public final class ConcurrentMapManager extends BaseManager {
             if (removed) {
                 record.version++;
                 fireMapEvent(mapListeners, name, EntryEvent.TYPE_REMOVED, record.key, req.value, record.mapListeners);
-                logger.log(Level.FINEST, record.value + " RemoveMulti " + record.lsValues);
+                logger.log(Level.FINEST, record.getValue() + " RemoveMulti " + record.lsValues);
             }
             req.version = record.version;
             return removed;
@@ -1979,7 +2963,7 @@ public final class ConcurrentMapManager extends BaseManager {
                 touch(record);
                 fireMapEvent(mapListeners, name, EntryEvent.TYPE_ADDED, record.key, d, record.mapListeners);
             }
-            logger.log(Level.FINEST, record.value + " PutMulti " + record.lsValues);
+            logger.log(Level.FINEST, record.getValue() + " PutMulti " + record.lsValues);
             req.version = record.version;
             return added;
         }
@@ -1990,12 +2974,12 @@ public final class ConcurrentMapManager extends BaseManager {
             }
             if (req.operation == CONCURRENT_MAP_PUT_IF_ABSENT) {
                 Record record = recordExist(req);
-                if (record != null && record.getValue() != null) {
-                    return doHardCopy(record.getValue());
+                if (record != null && record.hasValue()) {
+                    return record.getValueCopy();
                 }
             } else if (req.operation == CONCURRENT_MAP_REPLACE_IF_NOT_NULL) {
                 Record record = recordExist(req);
-                if (record == null || record.getValue() == null) {
+                if (record == null || !record.hasValue()) {
                     return null;
                 }
             }
@@ -2014,6 +2998,7 @@ public final class ConcurrentMapManager extends BaseManager {
                 record.version++;
                 touch(record);
                 record.setLastUpdated();
+                updateIndex(record);
             }
             req.version = record.version;
             req.longValue = record.copyCount;
@@ -2040,8 +3025,8 @@ public final class ConcurrentMapManager extends BaseManager {
             while (itDirtyRecords.hasNext()) {
                 Record dirtyRecord = itDirtyRecords.next();
                 if (dirtyRecord.writeTime > now) {
-                    if (dirtyRecord.value != null) {
-                        entriesToStore.put(doHardCopy(dirtyRecord.key), doHardCopy(dirtyRecord.value));
+                    if (dirtyRecord.hasValue()) {
+                        entriesToStore.put(doHardCopy(dirtyRecord.key), dirtyRecord.getValueCopy());
                     } else {
                         keysToDelete.add(doHardCopy(dirtyRecord.key));
                     }
@@ -2105,87 +3090,161 @@ public final class ConcurrentMapManager extends BaseManager {
             }
         }
 
+        /**
+         * Evicts up to EVICTION_BATCH_SIZE owned entries in place and sends
+         * their keys to each backup in one batch. Expired entries are evicted
+         * with no eviction policy. Otherwise, once the map is over its max
+         * size, evictionRate of the owned entries are evicted over as many
+         * ticks as it takes.
+         */
         void startEviction() {
-            if (evicting) return;
-            List<Data> lsKeysToEvict = null;
-            if (evictionPolicy == OrderingType.NONE) {
-                if (ttl != 0) {
-                    long now = System.currentTimeMillis();
-                    Collection<Record> values = mapRecords.values();
-                    for (Record record : values) {
-                        if (!record.isValid(now)) {
-                            if (record.isEvictable()) {
-                                if (lsKeysToEvict == null) {
-                                    lsKeysToEvict = new ArrayList<Data>(100);
-                                }
-                                lsKeysToEvict.add(doHardCopy(record.key));
-                            }
-                        } else {
-                            break;
+            startEviction(null);
+        }
+
+        /**
+         * @param created the record being created by the put that ran over
+         *                the max size, which is never evicted by it, or null
+         */
+        void startEviction(Record created) {
+            long now = System.currentTimeMillis();
+            if (evictionPolicy != OrderingType.NONE && evictionBacklog == 0) {
+                if (maxSize == Integer.MAX_VALUE || ownedEntryCount <= (maxSize / lsMembers.size())) {
+                    evictionLagMillis = 0;
+                    return;
+                }
+                evictionBacklog = Math.max(1, (int) (ownedEntryCount * evictionRate));
+                evictionRoundStart = now;
+            }
+            int batchSize = (evictionPolicy == OrderingType.NONE)
+                    ? EVICTION_BATCH_SIZE : Math.min(EVICTION_BATCH_SIZE, evictionBacklog);
+            int scanLimit = batchSize * EVICTION_SCAN_FACTOR;
+            int scanned = 0;
+            List<Record> lsRecordsToEvict = null;
+            Record firstLeft = null;
+            for (Record record : mapRecords.values()) {
+                if (evictionPolicy == OrderingType.NONE && record.isValid(now)) {
+                    break;
+                }
+                if (scanned++ >= scanLimit || (lsRecordsToEvict != null && lsRecordsToEvict.size() >= batchSize)) {
+                    firstLeft = record;
+                    break;
+                }
+                if (record != created && record.isEvictable() && ownerForSure(record)) {
+                    if (lsRecordsToEvict == null) {
+                        lsRecordsToEvict = new ArrayList<Record>(batchSize);
+                    }
+                    lsRecordsToEvict.add(record);
+                }
+            }
+            int evicted = 0;
+            if (lsRecordsToEvict != null) {
+                boolean backup = backupCount > 0 && lsMembers.size() > 1;
+                List<Data> lsEvictedKeys = (backup) ? new ArrayList<Data>(lsRecordsToEvict.size()) : null;
+                for (Record record : lsRecordsToEvict) {
+                    Data key = (backup) ? doHardCopy(record.key) : null;
+                    if (evict(record)) {
+                        evicted++;
+                        if (backup) {
+                            lsEvictedKeys.add(key);
                         }
                     }
                 }
+                if (backup && lsEvictedKeys.size() > 0) {
+                    sendEvictedKeys(lsEvictedKeys);
+                }
+                evictedCount += evicted;
+            }
+            if (evictionPolicy == OrderingType.NONE) {
+                evictionLagMillis = (firstLeft != null && !firstLeft.isValid(now)) ? now - firstLeft.expirationTime : 0;
             } else {
-                Collection<Record> values = mapRecords.values();
-                int numberOfRecordsToEvict = (int) (ownedEntryCount * evictionRate);
-                int evictedCount = 0;
-                for (Record record : values) {
-                    if (record.isEvictable()) {
-                        if (lsKeysToEvict == null) {
-                            lsKeysToEvict = new ArrayList<Data>(numberOfRecordsToEvict);
-                        }
-                        lsKeysToEvict.add(doHardCopy(record.key));
-                        if (++evictedCount >= numberOfRecordsToEvict) {
-                            break;
-                        }
+                // nothing left to look at, the rest of the backlog is locked or listened to
+                evictionBacklog = (firstLeft == null) ? 0 : Math.max(0, evictionBacklog - evicted);
+                evictionLagMillis = (evictionBacklog > 0) ? now - evictionRoundStart : 0;
+            }
+        }
+
+        private void sendEvictedKeys(List<Data> lsEvictedKeys) {
+            EvictedKeys evictedKeys = new EvictedKeys(name, lsEvictedKeys);
+            int count = Math.min(backupCount, lsMembers.size() - 1);
+            for (int distance = 1; distance <= count; distance++) {
+                MemberImpl member = getNextMemberAfter(thisAddress, true, distance);
+                if (member != null && !member.localMember()) {
+                    sendProcessableTo(evictedKeys, member.getAddress());
+                }
+            }
+        }
+
+        /**
+         * Rewrites the values of the owned records, see updateLocal.
+         */
+        List<Data> updateAll(List<Data> keys, RecordUpdater updater) {
+            List<Data> lsUpdated = new ArrayList<Data>(keys.size());
+            EntryBatch batch = new EntryBatch();
+            List<Long> lsVersions = new ArrayList<Long>(keys.size());
+            for (Data key : keys) {
+                Record record = getRecord(key);
+                if (record == null || !record.active || !record.hasValue()
+                        || !record.testLock(-1, null) || !ownerForSure(record)) {
+                    continue;
+                }
+                Data value = updater.update(record.key, record.getValue());
+                if (value == null) {
+                    continue;
+                }
+                record.setValue(value);
+                record.version++;
+                record.setLastUpdated();
+                updateIndex(record);
+                fireMapEvent(mapListeners, name, EntryEvent.TYPE_UPDATED, record);
+                markAsDirty(record);
+                batch.add(doHardCopy(record.key), doHardCopy(value));
+                lsVersions.add(record.version);
+                lsUpdated.add(key);
+            }
+            int updated = lsUpdated.size();
+            if (updated > 0 && backupCount > 0 && lsMembers.size() > 1) {
+                batch.versions = new long[updated];
+                for (int i = 0; i < updated; i++) {
+                    batch.versions[i] = lsVersions.get(i);
+                }
+                UpdatedValues updatedValues = new UpdatedValues(name, batch);
+                int count = Math.min(backupCount, lsMembers.size() - 1);
+                for (int distance = 1; distance <= count; distance++) {
+                    MemberImpl member = getNextMemberAfter(thisAddress, true, distance);
+                    if (member != null && !member.localMember()) {
+                        sendProcessableTo(updatedValues, member.getAddress());
                     }
                 }
             }
-            if (lsKeysToEvict != null && lsKeysToEvict.size() > 1) {
-//                System.out.println(ownedEntryCount + " stating eviction..." + lsKeysToEvict.size());
-                evicting = true;
-                int latchCount = lsKeysToEvict.size();
-                final CountDownLatch countDownLatchEvictionStart = new CountDownLatch(1);
-                final CountDownLatch countDownLatchEvictionEnd = new CountDownLatch(latchCount);
+            return lsUpdated;
+        }
 
-                executeLocally(new Runnable() {
-                    public void run() {
-                        try {
-                            countDownLatchEvictionStart.countDown();
-                            countDownLatchEvictionEnd.await(60, TimeUnit.SECONDS);
-                            enqueueAndReturn(new Processable() {
-                                public void process() {
-                                    evicting = false;
-                                }
-                            });
-                        } catch (Exception ignored) {
-                        }
+        /**
+         * Drops the backups of entries their owner evicted.
+         */
+        void evictBackups(List<Data> keys) {
+            for (Data key : keys) {
+                Record record = getRecord(key);
+                if (record != null && !ownerForSure(record)) {
+                    record.clearValue();
+                    updateIndex(record);
+                    if (record.isRemovable()) {
+                        removeAndPurgeRecord(record);
                     }
-                });
-                for (final Data key : lsKeysToEvict) {
-                    executeLocally(new Runnable() {
-                        public void run() {
-                            try {
-                                countDownLatchEvictionStart.await();
-                                MEvict mEvict = new MEvict();
-                                mEvict.evict(name, key);
-                                countDownLatchEvictionEnd.countDown();
-                            } catch (Exception ignored) {
-                            }
-                        }
-                    });
                 }
             }
         }
 
         final boolean evict(Request req) {
             Record record = getRecord(req.key);
-            if (record != null && record.isEvictable()) {
-                if (ownerForSure(record)) {
-                    fireMapEvent(mapListeners, name, EntryEvent.TYPE_EVICTED, record.key, record.value, record.mapListeners);
-                    removeAndPurgeRecord(record);
-                    return true;
-                }
+            return record != null && evict(record);
+        }
+
+        final boolean evict(Record record) {
+            if (record.isEvictable() && ownerForSure(record)) {
+                fireMapEvent(mapListeners, name, EntryEvent.TYPE_EVICTED, record.key, record.getValue(), record.mapListeners);
+                removeAndPurgeRecord(record);
+                return true;
             }
             return false;
         }
@@ -2207,9 +3266,7 @@ public final class ConcurrentMapManager extends BaseManager {
                 req.key = null;
             } else {
                 if (req.value != null) {
-                    if (record.value != null) {
-                        record.value.setNoData();
-                    }
+                    record.clearValue();
                     if (isMultiMap()) {
                         record.addValue(req.value);
                     } else {
@@ -2224,6 +3281,7 @@ public final class ConcurrentMapManager extends BaseManager {
                 record.lockThreadId = req.lockThreadId;
                 record.lockCount = req.lockCount;
             }
+            updateIndex(record);
             return record;
         }
 
@@ -2241,7 +3299,7 @@ public final class ConcurrentMapManager extends BaseManager {
             if (record.getCopyCount() > 0) {
                 record.decrementCopyCount();
                 removed = true;
-            } else if (record.value != null) {
+            } else if (record.hasValue()) {
                 removed = true;
             } else if (record.lsValues != null) {
                 removed = true;
@@ -2250,15 +3308,15 @@ public final class ConcurrentMapManager extends BaseManager {
             if (removed) {
                 fireMapEvent(mapListeners, name, EntryEvent.TYPE_REMOVED, record);
                 record.version++;
-                if (record.value != null) {
-                    record.value.setNoData();
-                    record.value = null;
+                if (record.hasValue()) {
+                    record.clearValue();
                 } else if (record.lsValues != null) {
                     for (Data v : record.lsValues) {
                         v.setNoData();
                     }
                     record.lsValues = null;
                 }
+                updateIndex(record);
             }
 
             req.version = record.version;
@@ -2285,10 +3343,8 @@ public final class ConcurrentMapManager extends BaseManager {
                 }
             }
             if (req.value != null) {
-                if (record.value != null) {
-                    if (!record.value.equals(req.value)) {
-                        return null;
-                    }
+                if (record.hasValue() && !record.containsValue(req.value)) {
+                    return null;
                 }
             }
             Data oldValue = record.getValue();
@@ -2300,8 +3356,9 @@ public final class ConcurrentMapManager extends BaseManager {
             if (oldValue != null) {
                 fireMapEvent(mapListeners, name, EntryEvent.TYPE_REMOVED, record.key, oldValue, record.mapListeners);
                 record.version++;
-                record.value = null;
+                record.setValue(null);
                 record.lsValues = null;
+                updateIndex(record);
             }
             req.version = record.version;
             req.longValue = record.copyCount;
@@ -2318,8 +3375,15 @@ public final class ConcurrentMapManager extends BaseManager {
 
         void reset() {
             mapRecords.clear();
+            if (index != null) {
+                index.clear();
+            }
+            if (offHeapStore != null) {
+                offHeapStore.clear();
+            }
             ownedEntryCount = 0;
-            evicting = false;
+            evictionBacklog = 0;
+            evictionLagMillis = 0;
             if (setDirtyRecords != null) {
                 setDirtyRecords.clear();
             }
@@ -2373,14 +3437,15 @@ public final class ConcurrentMapManager extends BaseManager {
             if (removedRecord != record) {
                 throw new RuntimeException(removedRecord + " is removed but should have removed " + record);
             }
+            if (index != null) {
+                index.remove(record.key);
+            }
             Block ownerBlock = blocks[record.blockId];
             if (thisAddress.equals(ownerBlock.getRealOwner())) {
                 ownedEntryCount--;
             }
             record.key.setNoData();
-            if (record.value != null) {
-                record.value.setNoData();
-            }
+            record.clearValue();
             if (record.lsValues != null) {
                 for (Data data : record.lsValues) {
                     data.setNoData();
@@ -2393,23 +3458,43 @@ public final class ConcurrentMapManager extends BaseManager {
                 throw new RuntimeException("Cannot create record from a 0 size key: " + key);
             }
             int blockId = getBlockId(key);
-            Record rec = new Record(name, blockId, key, value, ttl);
+            Record rec = new Record(name, blockId, key, value, ttl, offHeapStore);
             Block ownerBlock = getOrCreateBlock(blockId);
             if (thisAddress.equals(ownerBlock.getRealOwner())) {
                 ownedEntryCount++;
             }
             mapRecords.put(key, rec);
+            if (value != null) {
+                updateIndex(rec);
+            }
             if (evictionPolicy != OrderingType.NONE) {
                 if (maxSize != Integer.MAX_VALUE) {
                     int limitSize = (maxSize / lsMembers.size());
                     if (ownedEntryCount > limitSize) {
-                        startEviction();
+                        startEviction(rec);
                     }
                 }
             }
             return rec;
         }
 
+        void setIndex(MapIndex index) {
+            this.index = index;
+            for (Record record : mapRecords.values()) {
+                updateIndex(record);
+            }
+        }
+
+        void updateIndex(Record record) {
+            if (index != null) {
+                if (record.hasValue()) {
+                    index.index(record.key, record.getValue());
+                } else {
+                    index.remove(record.key);
+                }
+            }
+        }
+
         public void addListener(Data key, Address address, boolean includeValue) {
             if (key == null || key.size() == 0) {
                 mapListeners.put(address, includeValue);
@@ -2480,9 +3565,30 @@ public final class ConcurrentMapManager extends BaseManager {
         }
     }
 
+    /**
+     * One page of an iteration and the cursor to get the next one with,
+     * 0 after the last page.
+     */
+    public static class EntriesPage extends Pairs {
+        long cursor = 0;
+
+        public void writeData(DataOutput out) throws IOException {
+            super.writeData(out);
+            out.writeLong(cursor);
+        }
+
+        public void readData(DataInput in) throws IOException {
+            super.readData(in);
+            cursor = in.readLong();
+        }
+    }
+
     class Record {
         private Data key;
         private Data value;
+        // the value in the off-heap store of an OFFHEAP map, value is then null
+        private long valueAddress = OffHeapStore.NONE;
+        private final OffHeapStore offHeapStore;
         private long version = 0;
         private final long createTime;
         private long lastTouchTime = 0;
@@ -2495,6 +3601,8 @@ public final class ConcurrentMapManager extends BaseManager {
         private int lockThreadId = -1;
         private Address lockAddress = null;
         private int lockCount = 0;
+        // held by a batch loading or storing the entry, see CMap.hold
+        private int holdCount = 0;
         private List<ScheduledAction> lsScheduledActions = null;
         private Map<Address, Boolean> mapListeners = null;
         private int copyCount = 0;
@@ -2505,12 +3613,13 @@ public final class ConcurrentMapManager extends BaseManager {
         private boolean active = true;
         private long removeTime;
 
-        public Record(String name, int blockId, Data key, Data value, long ttl) {
+        public Record(String name, int blockId, Data key, Data value, long ttl, OffHeapStore offHeapStore) {
             super();
             this.name = name;
             this.blockId = blockId;
             this.key = key;
-            this.value = value;
+            this.offHeapStore = offHeapStore;
+            setValue(value);
             this.createTime = System.currentTimeMillis();
             setExpirationTime(ttl);
             this.lastTouchTime = createTime;
@@ -2565,17 +3674,80 @@ public final class ConcurrentMapManager extends BaseManager {
             return key;
         }
 
+        /**
+         * @return the value, a fresh copy if it is kept off-heap
+         */
         public Data getValue() {
+            if (valueAddress != OffHeapStore.NONE) {
+                return offHeapStore.load(valueAddress);
+            }
             return value;
         }
 
+        /**
+         * @return a copy of the value the caller owns
+         */
+        public Data getValueCopy() {
+            if (valueAddress != OffHeapStore.NONE) {
+                return (offHeapStore.size(valueAddress) == 0) ? null : offHeapStore.load(valueAddress);
+            }
+            return doHardCopy(value);
+        }
+
+        public boolean hasValue() {
+            return value != null || valueAddress != OffHeapStore.NONE;
+        }
+
+        /**
+         * Off-heap the value is copied into the store and the previous one
+         * freed; on the heap the record takes the value itself.
+         */
         public void setValue(Data value) {
-            this.value = value;
+            freeOffHeapValue();
+            if (value != null && offHeapStore != null) {
+                this.valueAddress = offHeapStore.store(value);
+                this.value = null;
+            } else {
+                this.value = value;
+            }
+        }
+
+        /**
+         * Drops the value, releasing its buffers.
+         */
+        public void clearValue() {
+            if (value != null) {
+                value.setNoData();
+                value = null;
+            }
+            freeOffHeapValue();
+        }
+
+        /**
+         * Brings an off-heap value back to the heap, so the record outlives
+         * the store being cleared.
+         */
+        void moveValueToHeap() {
+            if (valueAddress != OffHeapStore.NONE) {
+                value = offHeapStore.load(valueAddress);
+                valueAddress = OffHeapStore.NONE;
+            }
+        }
+
+        private void freeOffHeapValue() {
+            if (valueAddress != OffHeapStore.NONE) {
+                offHeapStore.free(valueAddress);
+                valueAddress = OffHeapStore.NONE;
+            }
+        }
+
+        private int valueSize() {
+            return (valueAddress != OffHeapStore.NONE) ? offHeapStore.size(valueAddress) : value.size();
         }
 
         public int valueCount() {
             int count = 0;
-            if (value != null) {
+            if (hasValue()) {
                 count = 1;
             } else if (lsValues != null) {
                 count = lsValues.size();
@@ -2587,8 +3759,8 @@ public final class ConcurrentMapManager extends BaseManager {
 
         public long getCost() {
             long cost = 0;
-            if (value != null) {
-                cost = value.size();
+            if (hasValue()) {
+                cost = valueSize();
                 if (copyCount > 0) {
                     cost *= copyCount;
                 }
@@ -2603,6 +3775,11 @@ public final class ConcurrentMapManager extends BaseManager {
         public boolean containsValue(Data value) {
             if (this.value != null) {
                 return this.value.equals(value);
+            } else if (valueAddress != OffHeapStore.NONE) {
+                Data current = offHeapStore.load(valueAddress);
+                boolean equal = current.equals(value);
+                current.setNoData();
+                return equal;
             } else if (lsValues != null) {
                 int count = lsValues.size();
                 for (int i = 0; i < count; i++) {
@@ -2665,7 +3842,7 @@ public final class ConcurrentMapManager extends BaseManager {
         }
 
         public void fireScheduledActions() {
-            if (lockCount == 0) {
+            if (lockCount == 0 && holdCount == 0) {
                 lockThreadId = -1;
                 lockAddress = null;
                 if (lsScheduledActions != null) {
@@ -2683,7 +3860,7 @@ public final class ConcurrentMapManager extends BaseManager {
 
 
         public boolean testLock(int threadId, Address address) {
-            return lockCount == 0 || lockThreadId == threadId && lockAddress.equals(address);
+            return holdCount == 0 && (lockCount == 0 || lockThreadId == threadId && lockAddress.equals(address));
         }
 
         public boolean lock(int threadId, Address address) {
@@ -2714,7 +3891,7 @@ public final class ConcurrentMapManager extends BaseManager {
         }
 
         public boolean isEvictable() {
-            return (lockCount == 0 && !hasListener() && (lsScheduledActions == null || lsScheduledActions.size() == 0));
+            return (lockCount == 0 && holdCount == 0 && !hasListener() && (lsScheduledActions == null || lsScheduledActions.size() == 0));
         }
 
         public boolean hasListener() {
@@ -2854,6 +4031,148 @@ public final class ConcurrentMapManager extends BaseManager {
         }
     }
 
+    /**
+     * The entries a bulk call takes to one owner: the keys and, for a put,
+     * the values. The owner answers in the same order without the keys,
+     * with the values found for a get and the record versions for a put;
+     * RETRY marks the keys it left to the caller.
+     */
+    public static class EntryBatch implements DataSerializable {
+        static final long RETRY = -1;
+
+        final List<Data> lsKeys = new ArrayList<Data>();
+        final List<Data> lsValues = new ArrayList<Data>();
+        long[] versions = null;
+
+        public EntryBatch() {
+        }
+
+        void add(Data key, Data value) {
+            lsKeys.add(key);
+            lsValues.add(value);
+        }
+
+        public void writeData(DataOutput out) throws IOException {
+            out.writeInt(lsKeys.size());
+            for (Data key : lsKeys) {
+                key.writeData(out);
+            }
+            out.writeInt(lsValues.size());
+            for (Data value : lsValues) {
+                boolean gotValue = (value != null && value.size() > 0);
+                out.writeBoolean(gotValue);
+                if (gotValue) {
+                    value.writeData(out);
+                }
+            }
+            out.writeInt((versions == null) ? -1 : versions.length);
+            if (versions != null) {
+                for (long version : versions) {
+                    out.writeLong(version);
+                }
+            }
+        }
+
+        public void readData(DataInput in) throws IOException {
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                Data key = new Data();
+                key.readData(in);
+                lsKeys.add(key);
+            }
+            size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                Data value = null;
+                if (in.readBoolean()) {
+                    value = new Data();
+                    value.readData(in);
+                }
+                lsValues.add(value);
+            }
+            size = in.readInt();
+            if (size >= 0) {
+                versions = new long[size];
+                for (int i = 0; i < size; i++) {
+                    versions[i] = in.readLong();
+                }
+            }
+        }
+    }
+
+    /**
+     * The keys of a batch of entries evicted by their owner, for the
+     * backup members to drop their copies.
+     */
+    public static class EvictedKeys extends AbstractRemotelyProcessable {
+        String name;
+        List<Data> lsKeys;
+
+        public EvictedKeys() {
+        }
+
+        EvictedKeys(String name, List<Data> lsKeys) {
+            this.name = name;
+            this.lsKeys = lsKeys;
+        }
+
+        public void readData(DataInput in) throws IOException {
+            name = in.readUTF();
+            int size = in.readInt();
+            lsKeys = new ArrayList<Data>(size);
+            for (int i = 0; i < size; i++) {
+                Data key = new Data();
+                key.readData(in);
+                lsKeys.add(key);
+            }
+        }
+
+        public void writeData(DataOutput out) throws IOException {
+            out.writeUTF(name);
+            out.writeInt(lsKeys.size());
+            for (Data key : lsKeys) {
+                key.writeData(out);
+            }
+        }
+
+        public void process() {
+            CMap cmap = getNode().concurrentMapManager.maps.get(name);
+            if (cmap != null) {
+                cmap.evictBackups(lsKeys);
+            }
+        }
+    }
+
+    public static class UpdatedValues extends AbstractRemotelyProcessable {
+        String name;
+        EntryBatch batch;
+
+        public UpdatedValues() {
+        }
+
+        UpdatedValues(String name, EntryBatch batch) {
+            this.name = name;
+            this.batch = batch;
+        }
+
+        public void readData(DataInput in) throws IOException {
+            name = in.readUTF();
+            batch = new EntryBatch();
+            batch.readData(in);
+        }
+
+        public void writeData(DataOutput out) throws IOException {
+            out.writeUTF(name);
+            batch.writeData(out);
+        }
+
+        public void process() {
+            CMap cmap = getNode().concurrentMapManager.maps.get(name);
+            if (cmap != null) {
+                cmap.backupAll(batch);
+            }
+        }
+    }
+
     public static class Blocks extends AbstractRemotelyProcessable {
         List<Block> lsBlocks = new ArrayList<Block>(BLOCK_COUNT);
 
@@ -2889,11 +4208,13 @@ public final class ConcurrentMapManager extends BaseManager {
         final String name;
         final List<Map.Entry> lsKeyValues = new ArrayList<Map.Entry>();
         final ClusterOperation operation;
+        // the transaction of the creating thread, pages may be fetched by another thread
+        final TransactionImpl txn;
 
         public Entries(String name, ClusterOperation operation) {
             this.name = name;
             this.operation = operation;
-            TransactionImpl txn = ThreadContext.get().txn;
+            this.txn = ThreadContext.get().txn;
             if (txn != null) {
                 List<Map.Entry> entriesUnderTxn = txn.newEntries(name);
                 if (entriesUnderTxn != null) {
@@ -2915,8 +4236,11 @@ public final class ConcurrentMapManager extends BaseManager {
         }
 
         public void addEntries(Pairs pairs) {
+            addEntries(pairs, lsKeyValues);
+        }
+
+        void addEntries(Pairs pairs, List<Map.Entry> lsKeyValues) {
             if (pairs.lsKeyValues == null) return;
-            TransactionImpl txn = ThreadContext.get().txn;
             for (KeyValue entry : pairs.lsKeyValues) {
                 if (txn != null) {
                     Object key = entry.getKey();
@@ -3024,6 +4348,159 @@ public final class ConcurrentMapManager extends BaseManager {
     }
 
 
+    /**
+     * The entries of a map fetched a page at a time, from one member after
+     * the other, as they are iterated. Each iterator runs an iteration of
+     * its own. size() asks every member for its count and isEmpty() for a
+     * single entry. The members keep no state between pages, so an
+     * iterator can be dropped at any point.
+     */
+    public class PagedEntries extends Entries {
+        final int fetchSize;
+
+        public PagedEntries(String name, ClusterOperation operation, int fetchSize) {
+            super(name, operation);
+            this.fetchSize = fetchSize;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !new PageIterator(1).hasNext();
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            if (txn != null) {
+                // the entries of the transaction replace the stored ones by key
+                for (Iterator<Map.Entry> it = new PageIterator(fetchSize); it.hasNext(); it.next()) {
+                    size++;
+                }
+                return size;
+            }
+            for (Address target : targets()) {
+                Object count = call(target, 0, ITERATION_COUNT);
+                if (count != null) {
+                    size += ((Long) count).intValue();
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator iterator() {
+            return new EntryIterator(new PageIterator(fetchSize));
+        }
+
+        private List<Address> targets() {
+            List<Address> lsTargets = new ArrayList<Address>();
+            lsTargets.add(thisAddress);
+            for (Member member : node.getClusterImpl().getMembers()) {
+                if (!member.localMember()) {
+                    lsTargets.add(((MemberImpl) member).getAddress());
+                }
+            }
+            return lsTargets;
+        }
+
+        class PageIterator implements Iterator<Map.Entry> {
+            final Iterator<Address> targets = targets().iterator();
+            final int pageSize;
+            Address target = null;
+            long cursor = 0;
+            Iterator<Map.Entry> page = lsKeyValues.iterator();
+
+            PageIterator(int pageSize) {
+                this.pageSize = pageSize;
+            }
+
+            public boolean hasNext() {
+                while (!page.hasNext()) {
+                    if (cursor == 0) {
+                        if (!targets.hasNext()) {
+                            return false;
+                        }
+                        target = targets.next();
+                    }
+                    EntriesPage entriesPage = (EntriesPage) call(target, cursor, pageSize);
+                    List<Map.Entry> lsPage = new ArrayList<Map.Entry>();
+                    if (entriesPage == null) {
+                        cursor = 0;
+                    } else {
+                        cursor = entriesPage.cursor;
+                        addEntries(entriesPage, lsPage);
+                    }
+                    page = lsPage.iterator();
+                }
+                return true;
+            }
+
+            public Map.Entry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+
+            public void remove() {
+                page.remove();
+            }
+        }
+
+        // null once the target left the cluster
+        private Object call(Address target, long cursor, long fetchSize) {
+            while (true) {
+                MGetEntries mGetEntries = new MGetEntries(target, cursor, fetchSize);
+                mGetEntries.doOp();
+                Object result = mGetEntries.getResultAsObject();
+                if (result instanceof AddressAwareException) {
+                    rethrowException(operation, (AddressAwareException) result);
+                }
+                if (result != OBJECT_REDO) {
+                    return result;
+                }
+                if (!isMember(target)) {
+                    return null;
+                }
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        private boolean isMember(Address address) {
+            for (Member member : node.getClusterImpl().getMembers()) {
+                if (((MemberImpl) member).getAddress().equals(address)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        class MGetEntries extends MigrationAwareTargettedCall {
+            final long fetchSize;
+
+            public MGetEntries(Address target, long cursor, long fetchSize) {
+                this.target = target;
+                this.fetchSize = fetchSize;
+                request.reset();
+                setLocal(operation, name, null, null, -1, cursor);
+                request.longValue = fetchSize;
+            }
+
+            @Override
+            void handleNoneRedoResponse(final Packet packet) {
+                if (fetchSize == ITERATION_COUNT) {
+                    handleLongNoneRedoResponse(packet);
+                } else {
+                    super.handleNoneRedoResponse(packet);
+                }
+            }
+        }
+    }
+
     public static class CMapEntry implements MapEntry, DataSerializable {
         private long cost = 0;
         private long expirationTime = 0;
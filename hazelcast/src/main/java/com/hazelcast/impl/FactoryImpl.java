@@ -19,6 +19,7 @@ package com.hazelcast.impl;
 
 import com.hazelcast.cluster.ClusterImpl;
 import com.hazelcast.config.Config;
+import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.core.*;
 import com.hazelcast.impl.BaseManager.Processable;
 import com.hazelcast.impl.BlockingQueueManager.Offer;
@@ -38,8 +39,8 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -1109,6 +1110,16 @@ public class FactoryImpl implements HazelcastInstance {
             return qproxyReal.offer(obj, timeout, unit);
         }
 
+        public Future offerAsync(Object obj) {
+            ensure();
+            return qproxyReal.offerAsync(obj);
+        }
+
+        public Future offerAsync(Object obj, ExecutionCallback callback) {
+            ensure();
+            return qproxyReal.offerAsync(obj, callback);
+        }
+
         public void put(Object obj) throws InterruptedException {
             ensure();
             qproxyReal.put(obj);
@@ -1158,6 +1169,15 @@ public class FactoryImpl implements HazelcastInstance {
                 return offer.offer(name, obj, unit.toMillis(timeout));
             }
 
+            public Future offerAsync(Object obj) {
+                return offerAsync(obj, null);
+            }
+
+            public Future offerAsync(Object obj, ExecutionCallback callback) {
+                Offer offer = blockingQueueManager.new Offer();
+                return offer.offerAsync(name, obj, callback);
+            }
+
             public void put(Object obj) throws InterruptedException {
                 Offer offer = blockingQueueManager.new Offer();
                 offer.offer(name, obj, -1);
@@ -1516,6 +1536,11 @@ public class FactoryImpl implements HazelcastInstance {
 
         private ListenerManager listenerManager = null;
 
+        // only the registered proxy of a map with a near cache has one
+        private transient NearCache nearCache = null;
+
+        private transient volatile boolean nearCacheListening = false;
+
         public MProxyImpl() {
         }
 
@@ -1523,6 +1548,12 @@ public class FactoryImpl implements HazelcastInstance {
             this.name = name;
             mproxyReal = new MProxyReal();
             setFactory(factory);
+            if (BaseManager.getInstanceType(name) == Instance.InstanceType.MAP) {
+                NearCacheConfig nearCacheConfig = Config.get().getMapConfig(name.substring(2)).getNearCacheConfig();
+                if (nearCacheConfig != null && nearCacheConfig.isEnabled()) {
+                    nearCache = new NearCache(nearCacheConfig);
+                }
+            }
         }
 
         public void setFactory(FactoryImpl factory) {
@@ -1624,6 +1655,31 @@ public class FactoryImpl implements HazelcastInstance {
             mproxyReal.putAll(t);
         }
 
+        public Map getAll(Set keys) {
+            ensure();
+            return mproxyReal.getAll(keys);
+        }
+
+        public Future getAsync(Object key) {
+            ensure();
+            return mproxyReal.getAsync(key);
+        }
+
+        public Future getAsync(Object key, ExecutionCallback callback) {
+            ensure();
+            return mproxyReal.getAsync(key, callback);
+        }
+
+        public Future putAsync(Object key, Object value) {
+            ensure();
+            return mproxyReal.putAsync(key, value);
+        }
+
+        public Future putAsync(Object key, Object value, ExecutionCallback callback) {
+            ensure();
+            return mproxyReal.putAsync(key, value, callback);
+        }
+
         public void clear() {
             ensure();
             mproxyReal.clear();
@@ -1705,6 +1761,68 @@ public class FactoryImpl implements HazelcastInstance {
             return mproxyReal.getLongName();
         }
 
+        public long getEvictedCount() {
+            return concurrentMapManager.getEvictedCount(getLongName());
+        }
+
+        public int getEvictionBacklog() {
+            return concurrentMapManager.getEvictionBacklog(getLongName());
+        }
+
+        public long getEvictionLagMillis() {
+            return concurrentMapManager.getEvictionLagMillis(getLongName());
+        }
+
+        public long getBackupReadCount() {
+            return concurrentMapManager.getBackupReadCount(getLongName());
+        }
+
+        public long getNearCacheHits() {
+            return (nearCache == null) ? 0 : nearCache.getHits();
+        }
+
+        public long getNearCacheMisses() {
+            return (nearCache == null) ? 0 : nearCache.getMisses();
+        }
+
+        public long getNearCacheInvalidations() {
+            return (nearCache == null) ? 0 : nearCache.getInvalidations();
+        }
+
+        public int getNearCacheSize() {
+            return (nearCache == null) ? 0 : nearCache.size();
+        }
+
+        /**
+         * Returns the near cache to read through, null if the map has none
+         * or the calling thread is in a transaction. The first call listens
+         * to the events of the map, which invalidate the cached values.
+         */
+        private NearCache getNearCache() {
+            if (nearCache == null) {
+                return null;
+            }
+            TransactionImpl txn = ThreadContext.get().txn;
+            if (txn != null && txn.getStatus() == Transaction.TXN_STATUS_ACTIVE) {
+                return null;
+            }
+            if (!nearCacheListening) {
+                synchronized (nearCache) {
+                    if (!nearCacheListening) {
+                        listenerManager.addListener(name, nearCache, null, false, ListenerManager.Type.Map);
+                        nearCacheListening = true;
+                    }
+                }
+            }
+            return nearCache;
+        }
+
+        private void invalidate(Object key) {
+            if (nearCache != null) {
+                nearCache.invalidate(key);
+            }
+        }
+
         public void addGenericListener(Object listener, Object key, boolean includeValue,
                                        ListenerManager.Type listenerType) {
             ensure();
@@ -1806,26 +1924,68 @@ public class FactoryImpl implements HazelcastInstance {
                 check(key);
                 check(value);
                 MPutMulti mput = concurrentMapManager.new MPutMulti();
-                return mput.put(name, key, value);
+                boolean added = mput.put(name, key, value);
+                invalidate(key);
+                return added;
             }
 
             public Object put(Object key, Object value) {
                 check(key);
                 check(value);
                 MPut mput = ThreadContext.get().getCallCache(factory).getMPut();
-                return mput.put(name, key, value, -1);
+                Object oldValue = mput.put(name, key, value, -1);
+                invalidate(key);
+                return oldValue;
             }
 
             public Object get(Object key) {
                 check(key);
-                MGet mget = ThreadContext.get().getCallCache(factory).getMGet();
-                return mget.get(name, key, -1);
+                NearCache cache = getNearCache();
+                if (cache == null) {
+                    MGet mget = ThreadContext.get().getCallCache(factory).getMGet();
+                    return mget.get(name, key, -1);
+                }
+                Object value = cache.get(key);
+                if (value == null) {
+                    long version = cache.getVersion();
+                    MGet mget = ThreadContext.get().getCallCache(factory).getMGet();
+                    value = mget.get(name, key, -1);
+                    cache.put(key, value, version);
+                }
+                return value;
+            }
+
+            public Future getAsync(Object key) {
+                return getAsync(key, null);
+            }
+
+            public Future getAsync(Object key, ExecutionCallback callback) {
+                check(key);
+                return concurrentMapManager.new MGet().getAsync(name, key, callback);
+            }
+
+            public Future putAsync(Object key, Object value) {
+                return putAsync(key, value, null);
+            }
+
+            public Future putAsync(final Object key, Object value, ExecutionCallback callback) {
+                check(key);
+                check(value);
+                // a get racing the put may cache the old value again until the put is done
+                invalidate(key);
+                return concurrentMapManager.new MPut().putAsync(name, key, value, callback, new Runnable() {
+                    public void run() {
+                        invalidate(key);
+                    }
+                });
             }
 
             public Object remove(Object key) {
                 check(key);
                 MRemove mremove = ThreadContext.get().getCallCache(factory).getMRemove();
-                return mremove.remove(name, key, -1);
+                Object oldValue = mremove.remove(name, key, -1);
+                invalidate(key);
+                return oldValue;
             }
 
             public int size() {
@@ -1844,34 +2004,55 @@ public class FactoryImpl implements HazelcastInstance {
                 check(key);
                 check(value);
                 MPut mput = concurrentMapManager.new MPut();
-                return mput.putIfAbsent(name, key, value, -1);
+                Object oldValue = mput.putIfAbsent(name, key, value, -1);
+                invalidate(key);
+                return oldValue;
             }
 
             public boolean removeMulti(Object key, Object value) {
                 check(key);
                 check(value);
                 MRemoveMulti mremove = concurrentMapManager.new MRemoveMulti();
-                return mremove.remove(name, key, value);
+                boolean removed = mremove.remove(name, key, value);
+                invalidate(key);
+                return removed;
             }
 
             public boolean remove(Object key, Object value) {
                 check(key);
                 check(value);
                 MRemove mremove = concurrentMapManager.new MRemove();
-                return (mremove.removeIfSame(name, key, value, -1) != null);
+                boolean removed = (mremove.removeIfSame(name, key, value, -1) != null);
+                invalidate(key);
+                return removed;
             }
 
             public Object replace(Object key, Object value) {
                 check(key);
                 check(value);
                 MPut mput = concurrentMapManager.new MPut();
-                return mput.replace(name, key, value, -1);
+                Object oldValue = mput.replace(name, key, value, -1);
+                invalidate(key);
+                return oldValue;
             }
 
             public boolean replace(Object key, Object oldValue, Object newValue) {
                 check(key);
+                check(oldValue);
                 check(newValue);
-                throw new UnsupportedOperationException();
+                // puts wait for the lock, so the value cannot change between the get and the put
+                lock(key);
+                try {
+                    MGet mget = ThreadContext.get().getCallCache(factory).getMGet();
+                    Object current = mget.get(name, key, -1);
+                    if (current == null || !current.equals(oldValue)) {
+                        return false;
+                    }
+                    put(key, newValue);
+                    return true;
+                } finally {
+                    unlock(key);
+                }
             }
 
             public void lock(Object key) {
@@ -1985,10 +2166,47 @@ public class FactoryImpl implements HazelcastInstance {
             public void putAll(Map map) {
                 Set<Entry> entries = map.entrySet();
                 for (Entry entry : entries) {
-                    put(entry.getKey(), entry.getValue());
+                    check(entry.getKey());
+                    check(entry.getValue());
+                }
+                concurrentMapManager.new MPutAll().putAll(name, map);
+                if (nearCache != null) {
+                    for (Object key : map.keySet()) {
+                        nearCache.invalidate(key);
+                    }
                 }
             }
 
+            public Map getAll(Set keys) {
+                for (Object key : keys) {
+                    check(key);
+                }
+                NearCache cache = getNearCache();
+                if (cache == null) {
+                    return concurrentMapManager.new MGetAll().getAll(name, keys);
+                }
+                Map result = new HashMap(keys.size());
+                Set missing = new HashSet();
+                for (Object key : keys) {
+                    Object value = cache.get(key);
+                    if (value == null) {
+                        missing.add(key);
+                    } else {
+                        result.put(key, value);
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    long version = cache.getVersion();
+                    Map loaded = concurrentMapManager.new MGetAll().getAll(name, missing);
+                    for (Object entry : loaded.entrySet()) {
+                        Entry e = (Entry) entry;
+                        cache.put(e.getKey(), e.getValue(), version);
+                    }
+                    result.putAll(loaded);
+                }
+                return result;
+            }
+
             public boolean add(Object value) {
                 if (value == null)
                     throw new NullPointerException();
@@ -2012,6 +2230,9 @@ public class FactoryImpl implements HazelcastInstance {
                 for (Object key : keys) {
                     removeKey(key);
                 }
+                if (nearCache != null) {
+                    nearCache.invalidateAll();
+                }
             }
 
             public Set entrySet() {
@@ -2037,6 +2258,9 @@ public class FactoryImpl implements HazelcastInstance {
 
             public void destroy() {
                 factory.destroyInstanceClusterwide(name, null);
+                if (nearCache != null) {
+                    nearCache.invalidateAll();
+                }
             }
         }
     }
@@ -2127,51 +2351,57 @@ public class FactoryImpl implements HazelcastInstance {
         }
 
 
+        /**
+         * Hands out the ids of a block of a million reserved for this member
+         * with a single atomic increment. Half way through a block the next
+         * one is reserved in the background, so writers only wait for the
+         * cluster when they drain a block faster than the next one arrives.
+         */
         private class IdGeneratorBase implements IdGenerator {
 
             private static final long MILLION = 1000000;
 
-            AtomicLong million = new AtomicLong(-1);
-
-            AtomicLong currentId = new AtomicLong(2 * MILLION);
-
-            AtomicBoolean fetching = new AtomicBoolean(false);
+            private final AtomicReference<IdBlock> current = new AtomicReference<IdBlock>(new IdBlock(-1));
 
+            private final AtomicReference<DistributedTask<Long>> next = new AtomicReference<DistributedTask<Long>>();
 
             public String getName() {
                 return name.substring(2);
             }
 
             public long newId() {
-                long millionNow = million.get();
-                long idAddition = currentId.incrementAndGet();
-                if (idAddition >= MILLION) {
+                while (true) {
+                    IdBlock block = current.get();
+                    long offset = block.offset.incrementAndGet();
+                    if (offset < MILLION) {
+                        if (offset == MILLION / 2) {
+                            prefetch();
+                        }
+                        return block.base + offset;
+                    }
                     synchronized (this) {
-                        try {
-                            millionNow = million.get();
-                            idAddition = currentId.incrementAndGet();
-                            if (idAddition >= MILLION) {
-                                Long idMillion = getNewMillion();
-                                long newMillion = idMillion * MILLION;
-                                million.set(newMillion);
-                                currentId.set(0);
+                        if (current.get() == block) {
+                            Long idMillion = takeNextMillion();
+                            if (idMillion == null) {
+                                throw new RuntimeException("Could not reserve ids for " + getName());
                             }
-                            millionNow = million.get();
-                            idAddition = currentId.incrementAndGet();
-                        } catch (Throwable t) {
-                            t.printStackTrace();
+                            current.set(new IdBlock(idMillion * MILLION));
                         }
                     }
+                }
+            }
 
+            private void prefetch() {
+                DistributedTask<Long> task = new DistributedTask<Long>(new IncrementTask(name, factory.getName()));
+                if (next.compareAndSet(null, task)) {
+                    factory.executorServiceImpl.execute(task);
                 }
-                return millionNow + idAddition;
             }
 
-            private Long getNewMillion() {
+            private Long takeNextMillion() {
+                prefetch();
                 try {
-                    DistributedTask<Long> task = new DistributedTask<Long>(new IncrementTask(name, factory.getName()));
-                    factory.executorServiceImpl.execute(task);
-                    return task.get();
+                    return next.getAndSet(null).get();
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -2190,6 +2420,19 @@ public class FactoryImpl implements HazelcastInstance {
                 return name;
             }
         }
+
+        static class IdBlock {
+            final long base;
+            final AtomicLong offset = new AtomicLong();
+
+            IdBlock(long base) {
+                this.base = base;
+                if (base < 0) {
+                    // nothing reserved yet
+                    offset.set(IdGeneratorBase.MILLION);
+                }
+            }
+        }
     }
 
     public static class IncrementTask implements Callable<Long>, Serializable {
@@ -306,6 +306,8 @@ public class ListenerManager extends BaseManager {
                 l.entryRemoved(event);
             else if (event.getEventType() == EntryEvent.EntryEventType.UPDATED)
                 l.entryUpdated(event);
+            else if (event.getEventType() == EntryEvent.EntryEventType.EVICTED)
+                l.entryEvicted(event);
         } else if (listenerItem.type == Type.Item) {
             ItemListener l = (ItemListener) listener;
             if (event.getEventType() == EntryEvent.EntryEventType.ADDED)
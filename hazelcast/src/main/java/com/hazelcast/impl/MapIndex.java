@@ -0,0 +1,60 @@
+/* 
+ * Copyright (c) 2007-2008, Hazel Ltd. All Rights Reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.nio.Data;
+
+import java.util.Collection;
+
+/**
+ * Secondary index over the values of a map. Each member keeps one index per
+ * map for the records it holds and updates it as records are put, removed,
+ * evicted or migrated. All methods are called from the service thread.
+ */
+public interface MapIndex {
+
+    /**
+     * Indexes (or re-indexes) the record with the given key.
+     *
+     * @param key   key of the record. Implementations may hold on to it
+     *              until {@link #remove(Data)} is called for the same key.
+     * @param value current value of the record
+     */
+    void index(Data key, Data value);
+
+    /**
+     * Removes the record with the given key from the index.
+     *
+     * @param key key of the record
+     */
+    void remove(Data key);
+
+    /**
+     * Removes all records from the index.
+     */
+    void clear();
+
+    /**
+     * Resolves the keys of the records that may satisfy the given criteria.
+     *
+     * @param criteria query criteria sent by the caller
+     * @return candidate keys or null if the criteria cannot be answered by
+     *         this index and every record has to be considered
+     */
+    Collection<Data> query(Object criteria);
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2007-2008, Hazel Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The values of a map read on this member, kept deserialized so a hit
+ * costs neither a call to the owner nor a deserialization. Every cached
+ * value is dropped once the owner fires an event for its key, so reads
+ * are only eventually consistent with writes made on other members.
+ * When full, the least recently or the least frequently used fifth of the
+ * values is dropped.
+ * <p/>
+ * Callers share the cached instances, so they must not modify them.
+ */
+final class NearCache implements EntryListener {
+
+    private static final int EVICTION_PERCENTAGE = 20;
+
+    private final ConcurrentMap<Object, CacheRecord> cache = new ConcurrentHashMap<Object, CacheRecord>();
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    private final boolean lfu;
+
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    // bumped by every invalidation, so a value read before it is not cached after it
+    private final AtomicLong invalidationVersion = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    NearCache(NearCacheConfig config) {
+        this.maxSize = (config.getMaxSize() <= 0) ? Integer.MAX_VALUE : config.getMaxSize();
+        this.ttlMillis = config.getTimeToLiveSeconds() * 1000L;
+        this.lfu = "LFU".equalsIgnoreCase(config.getEvictionPolicy());
+    }
+
+    /**
+     * @return the cached value or null on a miss
+     */
+    Object get(Object key) {
+        CacheRecord record = cache.get(key);
+        if (record != null) {
+            long now = System.currentTimeMillis();
+            if (ttlMillis == 0 || record.creationTime + ttlMillis > now) {
+                record.lastAccessTime = now;
+                record.hits++;
+                hits.incrementAndGet();
+                return record.value;
+            }
+            cache.remove(key, record);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * The version to hand to put along with the value read after calling this.
+     */
+    long getVersion() {
+        return invalidationVersion.get();
+    }
+
+    /**
+     * Caches the value unless an invalidation happened since the version was taken.
+     */
+    void put(Object key, Object value, long version) {
+        if (value == null || invalidationVersion.get() != version) {
+            return;
+        }
+        CacheRecord record = new CacheRecord(value);
+        cache.put(key, record);
+        if (invalidationVersion.get() != version) {
+            cache.remove(key, record);
+            return;
+        }
+        if (cache.size() > maxSize) {
+            evict();
+        }
+    }
+
+    void invalidate(Object key) {
+        invalidationVersion.incrementAndGet();
+        if (cache.remove(key) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    void invalidateAll() {
+        invalidationVersion.incrementAndGet();
+        int size = cache.size();
+        cache.clear();
+        invalidations.addAndGet(size);
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public void entryAdded(EntryEvent event) {
+        invalidate(event.getKey());
+    }
+
+    public void entryRemoved(EntryEvent event) {
+        invalidate(event.getKey());
+    }
+
+    public void entryUpdated(EntryEvent event) {
+        invalidate(event.getKey());
+    }
+
+    public void entryEvicted(EntryEvent event) {
+        invalidate(event.getKey());
+    }
+
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // ranked on a snapshot, the access fields keep changing while sorting
+            List<Candidate> candidates = new ArrayList<Candidate>(cache.size());
+            for (Map.Entry<Object, CacheRecord> entry : cache.entrySet()) {
+                CacheRecord record = entry.getValue();
+                candidates.add(new Candidate(entry.getKey(), record, lfu ? record.hits : record.lastAccessTime));
+            }
+            Collections.sort(candidates);
+            int count = Math.max(1, candidates.size() * EVICTION_PERCENTAGE / 100);
+            for (int i = 0; i < count && i < candidates.size(); i++) {
+                Candidate candidate = candidates.get(i);
+                cache.remove(candidate.key, candidate.record);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final Object key;
+        final CacheRecord record;
+        final long rank;
+
+        Candidate(Object key, CacheRecord record, long rank) {
+            this.key = key;
+            this.record = record;
+            this.rank = rank;
+        }
+
+        public int compareTo(Candidate other) {
+            return (rank < other.rank) ? -1 : ((rank == other.rank) ? 0 : 1);
+        }
+    }
+
+    // the access fields are updated without synchronization, they only steer the eviction
+    private static final class CacheRecord {
+        final Object value;
+        final long creationTime;
+        volatile long lastAccessTime;
+        volatile int hits;
+
+        CacheRecord(Object value) {
+            this.value = value;
+            this.creationTime = System.currentTimeMillis();
+            this.lastAccessTime = creationTime;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.hazelcast.cluster.ClusterImpl;
 import com.hazelcast.cluster.ClusterManager;
 import com.hazelcast.cluster.ClusterService;
 import com.hazelcast.config.Config;
+import com.hazelcast.config.ConfigProperty;
 import com.hazelcast.config.Join;
 import com.hazelcast.impl.MulticastService.JoinInfo;
 import com.hazelcast.nio.*;
@@ -80,10 +81,20 @@ public class Node {
 
     public final ExecutorManager executorManager;
 
+    /**
+     * The first in selector, it also accepts the connections.
+     */
     public final InSelector inSelector;
 
+    /**
+     * The first out selector, it also makes the connections.
+     */
     public final OutSelector outSelector;
 
+    public final InSelector[] inSelectors;
+
+    public final OutSelector[] outSelectors;
+
     public final MulticastService multicastService;
 
     public final ConnectionManager connectionManager;
@@ -210,8 +221,16 @@ public class Node {
         clusterService = new ClusterService(this);
         clusterService.start();
 
-        inSelector = new InSelector(this, serverSocketChannel);
-        outSelector = new OutSelector(this);
+        inSelectors = new InSelector[Math.max(1, ConfigProperty.IO_INPUT_THREAD_COUNT.getInteger())];
+        for (int i = 0; i < inSelectors.length; i++) {
+            inSelectors[i] = new InSelector(this, (i == 0) ? serverSocketChannel : null);
+        }
+        outSelectors = new OutSelector[Math.max(1, ConfigProperty.IO_OUTPUT_THREAD_COUNT.getInteger())];
+        for (int i = 0; i < outSelectors.length; i++) {
+            outSelectors[i] = new OutSelector(this);
+        }
+        inSelector = inSelectors[0];
+        outSelector = outSelectors[0];
         connectionManager = new ConnectionManager(this);
 
         clusterManager = new ClusterManager(this);
@@ -393,8 +412,12 @@ public class Node {
                 multicastService.stop();
                 connectionManager.shutdown();
                 executorManager.stop();
-                inSelector.shutdown();
-                outSelector.shutdown();
+                for (InSelector selector : inSelectors) {
+                    selector.shutdown();
+                }
+                for (OutSelector selector : outSelectors) {
+                    selector.shutdown();
+                }
                 address = null;
                 masterAddress = null;
                 factory.inited = false;
@@ -408,15 +431,19 @@ public class Node {
 
     public void start() {
         if (completelyShutdown) return;
-        final Thread inThread = new Thread(inSelector, "hz.InThread");
-        inThread.start();
-        inThread.setPriority(8);
-        threads.add(inThread);
-
-        final Thread outThread = new Thread(outSelector, "hz.OutThread");
-        outThread.start();
-        outThread.setPriority(8);
-        threads.add(outThread);
+        for (int i = 0; i < inSelectors.length; i++) {
+            final Thread inThread = new Thread(inSelectors[i], (i == 0) ? "hz.InThread" : "hz.InThread." + i);
+            inThread.start();
+            inThread.setPriority(8);
+            threads.add(inThread);
+        }
+
+        for (int i = 0; i < outSelectors.length; i++) {
+            final Thread outThread = new Thread(outSelectors[i], (i == 0) ? "hz.OutThread" : "hz.OutThread." + i);
+            outThread.start();
+            outThread.setPriority(8);
+            threads.add(outThread);
+        }
 
         final Thread clusterServiceThread = new Thread(clusterService, "hz.ServiceThread");
         clusterServiceThread.start();
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2007-2008, Hazel Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.nio.Data;
+
+import static com.hazelcast.nio.BufferUtil.obtainEmptyBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the values of an OFFHEAP map in direct memory slabs, out of reach
+ * of the garbage collector. A value is copied into a chunk of the smallest
+ * size class that fits it and addressed by a long holding the slab index
+ * and the offset; freed chunks are reused through a free list per size
+ * class. Values larger than a slab get a slab of their own.
+ * <p/>
+ * Only the service thread may use a store.
+ */
+final class OffHeapStore {
+
+    static final long NONE = -1L;
+
+    private static final int HEADER = 4;
+
+    private static final int MIN_CHUNK_SIZE = 32;
+
+    private final int slabSize;
+
+    // the size classes, powers of two and the halfway steps between them
+    private final int[] chunkSizes;
+
+    private final LongStack[] freeChunks;
+
+    private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+
+    private final LongStack freeSlabs = new LongStack();
+
+    private ByteBuffer currentSlab = null;
+
+    private int currentSlabIndex = -1;
+
+    private long usedBytes = 0;
+
+    private long allocatedBytes = 0;
+
+    OffHeapStore(int slabSize) {
+        this.slabSize = Math.max(slabSize, MIN_CHUNK_SIZE);
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (int size = MIN_CHUNK_SIZE; size <= this.slabSize && size > 0; size <<= 1) {
+            sizes.add(size);
+            int halfway = size + (size >> 1);
+            if (halfway <= this.slabSize) {
+                sizes.add(halfway);
+            }
+        }
+        chunkSizes = new int[sizes.size()];
+        freeChunks = new LongStack[sizes.size()];
+        for (int i = 0; i < chunkSizes.length; i++) {
+            chunkSizes[i] = sizes.get(i);
+            freeChunks[i] = new LongStack();
+        }
+    }
+
+    /**
+     * Copies the value into the store, the value itself is left untouched.
+     *
+     * @return the address of the copy
+     */
+    long store(Data value) {
+        int length = value.size();
+        int sizeClass = sizeClass(HEADER + length);
+        long address;
+        if (sizeClass < 0) {
+            address = toAddress(addSlab(ByteBuffer.allocateDirect(HEADER + length)), 0);
+        } else {
+            address = allocate(sizeClass);
+        }
+        ByteBuffer chunk = slab(address);
+        chunk.position(offset(address));
+        chunk.putInt(length);
+        if (length > 0) {
+            value.copyToBuffer(chunk);
+        }
+        usedBytes += length;
+        return address;
+    }
+
+    /**
+     * @return a new on-heap copy of the value at the address
+     */
+    Data load(long address) {
+        ByteBuffer src = slab(address);
+        int offset = offset(address);
+        int remaining = src.getInt(offset);
+        src.position(offset + HEADER);
+        Data data = new Data();
+        while (remaining > 0) {
+            ByteBuffer bb = obtainEmptyBuffer();
+            int n = Math.min(remaining, bb.remaining());
+            src.limit(src.position() + n);
+            bb.put(src);
+            data.add(bb);
+            bb.flip();
+            remaining -= n;
+        }
+        return data;
+    }
+
+    int size(long address) {
+        return slab(address).getInt(offset(address));
+    }
+
+    void free(long address) {
+        int slabIndex = (int) (address >>> 32);
+        int length = size(address);
+        usedBytes -= length;
+        int sizeClass = sizeClass(HEADER + length);
+        if (sizeClass < 0) {
+            allocatedBytes -= slabs.get(slabIndex).capacity();
+            slabs.set(slabIndex, null);
+            freeSlabs.push(slabIndex);
+        } else {
+            freeChunks[sizeClass].push(address);
+        }
+    }
+
+    /**
+     * Drops all the values; the slabs are left to the garbage collector,
+     * which releases their direct memory.
+     */
+    void clear() {
+        slabs.clear();
+        freeSlabs.clear();
+        for (LongStack stack : freeChunks) {
+            stack.clear();
+        }
+        currentSlab = null;
+        currentSlabIndex = -1;
+        usedBytes = 0;
+        allocatedBytes = 0;
+    }
+
+    long getUsedBytes() {
+        return usedBytes;
+    }
+
+    long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    private long allocate(int sizeClass) {
+        LongStack free = freeChunks[sizeClass];
+        if (!free.isEmpty()) {
+            return free.pop();
+        }
+        int chunkSize = chunkSizes[sizeClass];
+        if (currentSlab == null || currentSlab.remaining() < chunkSize) {
+            if (currentSlab != null) {
+                recycleRemainder();
+            }
+            currentSlab = ByteBuffer.allocateDirect(slabSize);
+            currentSlabIndex = addSlab(currentSlab);
+        }
+        long address = toAddress(currentSlabIndex, currentSlab.position());
+        currentSlab.position(currentSlab.position() + chunkSize);
+        return address;
+    }
+
+    // hands the tail of a full slab to the free lists instead of wasting it
+    private void recycleRemainder() {
+        for (int i = chunkSizes.length - 1; i >= 0; i--) {
+            while (currentSlab.remaining() >= chunkSizes[i]) {
+                freeChunks[i].push(toAddress(currentSlabIndex, currentSlab.position()));
+                currentSlab.position(currentSlab.position() + chunkSizes[i]);
+            }
+        }
+    }
+
+    private int addSlab(ByteBuffer slab) {
+        allocatedBytes += slab.capacity();
+        if (!freeSlabs.isEmpty()) {
+            int index = (int) freeSlabs.pop();
+            slabs.set(index, slab);
+            return index;
+        }
+        slabs.add(slab);
+        return slabs.size() - 1;
+    }
+
+    // a view of the slab, so the position and limit of the slab stay untouched
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32)).duplicate();
+    }
+
+    private int sizeClass(int size) {
+        if (size > slabSize) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(chunkSizes, size);
+        if (index < 0) {
+            index = -(index + 1);
+        }
+        return (index < chunkSizes.length) ? index : -1;
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static long toAddress(int slabIndex, int offset) {
+        return ((long) slabIndex << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static final class LongStack {
+        private long[] values = new long[16];
+        private int size = 0;
+
+        void push(long value) {
+            if (size == values.length) {
+                long[] grown = new long[size << 1];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        long pop() {
+            return values[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            values = new long[16];
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/* 
+ * Copyright (c) 2007-2008, Hazel Ltd. All Rights Reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.nio.Data;
+
+/**
+ * Sees the entry events of a map on the member owning the entries, on the
+ * service thread, whether or not any member listens to the map. Lets the
+ * owner decide what is worth sending before anything leaves the member.
+ */
+public interface OwnerEntryListener {
+
+    /**
+     * @param eventType one of the EntryEvent types
+     */
+    void entryEvent(String name, int eventType, Data key, Data value);
+}
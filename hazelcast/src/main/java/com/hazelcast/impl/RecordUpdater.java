@@ -0,0 +1,34 @@
+/* 
+ * Copyright (c) 2007-2008, Hazel Ltd. All Rights Reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.nio.Data;
+
+/**
+ * Rewrites the value of a record on the member owning it, see
+ * {@link ConcurrentMapManager#updateLocal}. Called from the service thread.
+ */
+public interface RecordUpdater {
+
+    /**
+     * @param key   key of the record
+     * @param value current value of the record
+     * @return the new value of the record or null to leave it as it is
+     */
+    Data update(Data key, Data value);
+}
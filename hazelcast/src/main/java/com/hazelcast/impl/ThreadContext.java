@@ -65,10 +65,10 @@ public final class ThreadContext {
         int packetCacheSize = 0;
         String threadName = Thread.currentThread().getName();
         if (threadName.startsWith("hz.")) {
-            if ("hz.InThread".equals(threadName)) {
+            if (threadName.startsWith("hz.InThread")) {
                 bufferCacheSize = 100;
                 packetCacheSize = 100;
-            } else if ("hz.OutThread".equals(threadName)) {
+            } else if (threadName.startsWith("hz.OutThread")) {
                 bufferCacheSize = 0;
                 packetCacheSize = 0;
             } else if ("hz.ServiceThread".equals(threadName)) {
@@ -27,11 +27,14 @@ import java.net.URL;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
+import com.hazelcast.cluster.ClusterImpl;
 import com.hazelcast.config.Config;
 import com.hazelcast.core.Cluster;
 import com.hazelcast.core.Member;
 import com.hazelcast.core.MembershipEvent;
 import com.hazelcast.core.MembershipListener;
+import com.hazelcast.impl.Node;
+import com.hazelcast.nio.SelectorBase;
 
 /**
  * The instrumentation MBean for the cluster.
@@ -192,4 +195,25 @@ public class ClusterMBean extends AbstractMBean<Cluster> {
 		return result;
 	}
 
+	@JMXAttribute("InSelectors")
+	@JMXDescription("Queue size, connections and busy time of the threads reading from the connections")
+	public List<String> getInSelectors() {
+		Node node = ((ClusterImpl) getManagedObject()).getNode();
+		return describe(node.inSelectors);
+	}
+
+	@JMXAttribute("OutSelectors")
+	@JMXDescription("Queue size, connections and busy time of the threads writing to the connections")
+	public List<String> getOutSelectors() {
+		Node node = ((ClusterImpl) getManagedObject()).getNode();
+		return describe(node.outSelectors);
+	}
+
+	private List<String> describe(SelectorBase[] selectors) {
+		ArrayList<String> result = new ArrayList<String>();
+		for (SelectorBase selector : selectors) {
+			result.add(selector.toString());
+		}
+		return result;
+	}
 }
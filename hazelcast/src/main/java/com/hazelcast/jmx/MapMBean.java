@@ -26,6 +26,7 @@ import javax.management.ObjectName;
 import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.EntryListener;
 import com.hazelcast.core.IMap;
+import com.hazelcast.impl.FactoryImpl;
 
 /**
  * MBean for Map
@@ -136,5 +137,54 @@ public class MapMBean extends AbstractMBean<IMap> {
 	public int getSize() {
 		return getManagedObject().size();
 	}	
+
+	@JMXAttribute("EvictedCount")
+	@JMXDescription("Entries evicted on this member")
+	public long getEvictedCount() {
+		return (getManagedObject() instanceof FactoryImpl.MProxyImpl)
+				? ((FactoryImpl.MProxyImpl) getManagedObject()).getEvictedCount() : 0;
+	}
+
+	@JMXAttribute("EvictionBacklog")
+	@JMXDescription("Entries still to evict on this member")
+	public int getEvictionBacklog() {
+		return (getManagedObject() instanceof FactoryImpl.MProxyImpl)
+				? ((FactoryImpl.MProxyImpl) getManagedObject()).getEvictionBacklog() : 0;
+	}
+
+	@JMXAttribute("EvictionLag")
+	@JMXDescription("Milliseconds the oldest entry due for eviction has been waiting")
+	public long getEvictionLag() {
+		return (getManagedObject() instanceof FactoryImpl.MProxyImpl)
+				? ((FactoryImpl.MProxyImpl) getManagedObject()).getEvictionLagMillis() : 0;
+	}
+
+	@JMXAttribute("NearCacheHits")
+	@JMXDescription("Reads served by the near cache of this member")
+	public long getNearCacheHits() {
+		return (getManagedObject() instanceof FactoryImpl.MProxyImpl)
+				? ((FactoryImpl.MProxyImpl) getManagedObject()).getNearCacheHits() : 0;
+	}
+
+	@JMXAttribute("NearCacheMisses")
+	@JMXDescription("Reads the near cache of this member sent to the owner")
+	public long getNearCacheMisses() {
+		return (getManagedObject() instanceof FactoryImpl.MProxyImpl)
+				? ((FactoryImpl.MProxyImpl) getManagedObject()).getNearCacheMisses() : 0;
+	}
+
+	@JMXAttribute("NearCacheInvalidations")
+	@JMXDescription("Near cache values dropped because the entry changed")
+	public long getNearCacheInvalidations() {
+		return (getManagedObject() instanceof FactoryImpl.MProxyImpl)
+				? ((FactoryImpl.MProxyImpl) getManagedObject()).getNearCacheInvalidations() : 0;
+	}
+
+	@JMXAttribute("NearCacheSize")
+	@JMXDescription("Values in the near cache of this member")
+	public int getNearCacheSize() {
+		return (getManagedObject() instanceof FactoryImpl.MProxyImpl)
+				? ((FactoryImpl.MProxyImpl) getManagedObject()).getNearCacheSize() : 0;
+	}
 	
 }
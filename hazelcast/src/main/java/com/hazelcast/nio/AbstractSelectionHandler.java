@@ -56,8 +56,8 @@ abstract class AbstractSelectionHandler implements SelectionHandler {
         this.connection = connection;
         this.socketChannel = connection.getSocketChannel();
         this.node = connection.connectionManager.node;
-        this.inSelector = node.inSelector;
-        this.outSelector = node.outSelector;
+        this.inSelector = connection.inSelector;
+        this.outSelector = connection.outSelector;
         this.clusterService = node.clusterService;
     }
 
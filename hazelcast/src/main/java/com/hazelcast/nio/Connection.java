@@ -31,13 +31,20 @@ public class Connection {
 
     final ConnectionManager connectionManager;
 
+    final InSelector inSelector;
+
+    final OutSelector outSelector;
+
     private volatile boolean live = true;
 
     Address endPoint = null;
 
-    public Connection(ConnectionManager connectionManager, SocketChannel socketChannel) {
+    public Connection(ConnectionManager connectionManager, SocketChannel socketChannel,
+                      InSelector inSelector, OutSelector outSelector) {
         this.connectionManager = connectionManager;
         this.socketChannel = socketChannel;
+        this.inSelector = inSelector;
+        this.outSelector = outSelector;
         this.writeHandler = new WriteHandler(this);
         this.readHandler = new ReadHandler(this);
     }
@@ -54,6 +61,14 @@ public class Connection {
         return writeHandler;
     }
 
+    public InSelector getInSelector() {
+        return inSelector;
+    }
+
+    public OutSelector getOutSelector() {
+        return outSelector;
+    }
+
     public void setLive(boolean live) {
         this.live = live;
     }
@@ -99,6 +114,8 @@ public class Connection {
         if (!live)
             return;
         live = false;
+        inSelector.connectionCount.decrementAndGet();
+        outSelector.connectionCount.decrementAndGet();
         try {
             if (socketChannel != null && socketChannel.isOpen())
                 socketChannel.close();
@@ -44,6 +44,9 @@ public class ConnectionManager {
 
     private boolean acceptTypeConnection = false;
 
+    // guarded by createConnection
+    private int nextSelectorIndex = 0;
+
     final Node node;
 
     public ConnectionManager(Node node) {
@@ -89,14 +92,20 @@ public class ConnectionManager {
 
     public synchronized Connection createConnection(final SocketChannel socketChannel,
                                                     final boolean acceptor) {
-        final Connection connection = new Connection(this, socketChannel);
+        // stripe the connections over the selector threads
+        final int index = nextSelectorIndex++ & Integer.MAX_VALUE;
+        final InSelector inSelector = node.inSelectors[index % node.inSelectors.length];
+        final OutSelector outSelector = node.outSelectors[index % node.outSelectors.length];
+        inSelector.connectionCount.incrementAndGet();
+        outSelector.connectionCount.incrementAndGet();
+        final Connection connection = new Connection(this, socketChannel, inSelector, outSelector);
         try {
             if (acceptor) {
                 // do nothing. you will be registering for the
                 // write operation when you have something to
                 // write already in the outSelector thread.
             } else {
-                node.inSelector.addTask(connection.getReadHandler());
+                inSelector.addTask(connection.getReadHandler());
                 // socketChannel.register(inSelector.selector,
                 // SelectionKey.OP_READ, readHandler);
             }
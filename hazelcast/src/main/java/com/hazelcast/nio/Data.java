@@ -189,6 +189,28 @@ public final class Data implements DataSerializable {
         }
     }
 
+    /**
+     * The hash placing this key on a member: the partition hash written
+     * in front of PartitionAware objects, otherwise the content hash.
+     */
+    public int getPartitionHash() {
+        if (size < 5 || readByte(0) != Serializer.SERIALIZER_TYPE_PARTITION_AWARE) {
+            return hashCode();
+        }
+        return ((readByte(1) & 0xFF) << 24) | ((readByte(2) & 0xFF) << 16)
+                | ((readByte(3) & 0xFF) << 8) | (readByte(4) & 0xFF);
+    }
+
+    private byte readByte(int index) {
+        for (ByteBuffer bb : lsData) {
+            if (index < bb.limit()) {
+                return bb.get(index);
+            }
+            index -= bb.limit();
+        }
+        return 0;
+    }
+
     @Override
     public int hashCode() {
         if (hash == Integer.MIN_VALUE) {
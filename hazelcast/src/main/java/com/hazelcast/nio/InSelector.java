@@ -40,14 +40,17 @@ public class InSelector extends SelectorBase {
         this.waitTime = 64;
         this.serverSocketChannel = serverSocketChannel;
         SelectionKey sKey = null;
-        try {
-            sKey = serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT, new Acceptor());
-        } catch (final ClosedChannelException e) {
-            e.printStackTrace();
+        // only the first in selector accepts, the others just read
+        if (serverSocketChannel != null) {
+            try {
+                sKey = serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT, new Acceptor());
+            } catch (final ClosedChannelException e) {
+                e.printStackTrace();
+            }
+            logger.log(Level.FINEST, "Started Selector at "
+                    + serverSocketChannel.socket().getLocalPort());
         }
         key = sKey;
-        logger.log(Level.FINEST, "Started Selector at "
-                + serverSocketChannel.socket().getLocalPort());
         selector.wakeup();
     }
 
@@ -71,7 +74,14 @@ public class InSelector extends SelectorBase {
                             + channel.socket().getRemoteSocketAddress());
                 if (channel != null) {
                     final Connection connection = initChannel(channel, true);
-                    channel.register(selector, SelectionKey.OP_READ, connection.getReadHandler());
+                    final InSelector inSelector = connection.getInSelector();
+                    if (inSelector == InSelector.this) {
+                        channel.register(selector, SelectionKey.OP_READ, connection.getReadHandler());
+                    } else {
+                        // a channel is registered by the thread of its selector
+                        inSelector.addTask(connection.getReadHandler());
+                        inSelector.selector.wakeup();
+                    }
                 }
                 serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT, Acceptor.this);
                 selector.wakeup();
@@ -211,6 +211,44 @@ public final class Packet {
         return totalWritten >= totalSize;
     }
 
+    /**
+     * Number of buffers addBuffers hands out for this packet.
+     */
+    final int bufferCount() {
+        int count = 2;
+        if (key.size() > 0) {
+            count += key.lsData.size();
+        }
+        if (value.size() > 0) {
+            count += value.lsData.size();
+        }
+        return count;
+    }
+
+    /**
+     * Puts the packet's own buffers, in wire order, into dest for a
+     * gathering write. The buffers are not copied, the write drains them.
+     *
+     * @return the index after the last buffer put
+     */
+    final int addBuffers(ByteBuffer[] dest, int offset) {
+        dest[offset++] = bbSizes;
+        dest[offset++] = bbHeader;
+        if (key.size() > 0) {
+            int len = key.lsData.size();
+            for (int i = 0; i < len; i++) {
+                dest[offset++] = key.lsData.get(i);
+            }
+        }
+        if (value.size() > 0) {
+            int len = value.lsData.size();
+            for (int i = 0; i < len; i++) {
+                dest[offset++] = value.lsData.get(i);
+            }
+        }
+        return offset;
+    }
+
     public final boolean read(ByteBuffer bb) {
         while (!sizeRead && bb.hasRemaining() && bbSizes.hasRemaining()) {
             BufferUtil.copyToHeapBuffer(bb, bbSizes);
@@ -45,6 +45,12 @@ public class SelectorBase implements Runnable {
 
     AtomicInteger size = new AtomicInteger();
 
+    // connections striped onto this selector, see ConnectionManager.createConnection
+    final AtomicInteger connectionCount = new AtomicInteger();
+
+    // nanos spent running tasks and handling selected keys
+    private volatile long totalProcessTime = 0;
+
     final Node node;
 
     public SelectorBase(Node node) {
@@ -86,10 +92,24 @@ public class SelectorBase implements Runnable {
         }
     }
 
+    public int getQueueSize() {
+        return size.get();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public long getTotalProcessTime() {
+        return totalProcessTime;
+    }
+
     public void run() {
         while (live) {
             if (size.get() > 0) {
+                final long processStart = System.nanoTime();
                 processSelectionQueue();
+                totalProcessTime += System.nanoTime() - processStart;
             }
             int selectedKeys;
             try {
@@ -104,6 +124,7 @@ public class SelectorBase implements Runnable {
             if (selectedKeys == 0) {
                 continue;
             }
+            final long processStart = System.nanoTime();
             final Set<SelectionKey> setSelectedKeys = selector.selectedKeys();
             final Iterator<SelectionKey> it = setSelectedKeys.iterator();
             while (it.hasNext()) {
@@ -117,6 +138,7 @@ public class SelectorBase implements Runnable {
                     handleSelectorException(e);
                 }
             }
+            totalProcessTime += System.nanoTime() - processStart;
         }
         try {
             selector.close();
@@ -126,6 +148,12 @@ public class SelectorBase implements Runnable {
     }
 
 
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " queueSize=" + size.get() + " connections=" + connectionCount.get()
+                + " busyMillis=" + (totalProcessTime / 1000000);
+    }
+
     protected void handleSelectorException(final Exception e) {
         String msg = "Selector exception at  " + Thread.currentThread().getName();
         msg += ", cause= " + e.toString();
@@ -20,6 +20,7 @@ package com.hazelcast.nio;
 import static com.hazelcast.impl.Constants.IO.BYTE_BUFFER_SIZE;
 import com.hazelcast.impl.ThreadContext;
 import com.hazelcast.config.ConfigProperty;
+import com.hazelcast.core.PartitionAware;
 import static com.hazelcast.nio.BufferUtil.createNewData;
 import static com.hazelcast.nio.BufferUtil.doHardCopy;
 
@@ -45,6 +46,9 @@ public final class Serializer {
 
     private static final byte SERIALIZER_TYPE_STRING = 6;
 
+    // prefix of PartitionAware objects, followed by the partition hash and the object itself
+    static final byte SERIALIZER_TYPE_PARTITION_AWARE = 7;
+
     private static TypeSerializer[] typeSerizalizers = new TypeSerializer[7];
 
     static {
@@ -78,6 +82,10 @@ public final class Serializer {
         Data data = createNewData();
         bufferProvider.setData(data);
         bbos.reset();
+        if (obj instanceof PartitionAware) {
+            bbos.writeByte(SERIALIZER_TYPE_PARTITION_AWARE);
+            bbos.writeInt(((PartitionAware) obj).getPartitionKey().hashCode());
+        }
         byte typeId = SERIALIZER_TYPE_OBJECT;
         if (obj instanceof DataSerializable) {
             typeId = SERIALIZER_TYPE_DATA;
@@ -111,6 +119,10 @@ public final class Serializer {
             bbis.reset();
             bufferProvider.setData(data);
             byte typeId = bbis.readByte();
+            if (typeId == SERIALIZER_TYPE_PARTITION_AWARE) {
+                bbis.readInt();
+                typeId = bbis.readByte();
+            }
             result = typeSerizalizers[typeId].read(bbis, data);
             if (purgeData) data.setNoData();
         } catch (Exception e) {
@@ -18,6 +18,7 @@
 package com.hazelcast.nio;
 
 import static com.hazelcast.nio.BufferUtil.copyToDirectBuffer;
+import com.hazelcast.config.ConfigProperty;
 
 import javax.crypto.Cipher;
 import java.nio.ByteBuffer;
@@ -41,6 +42,30 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
 
     private final PacketWriter packetWriter;
 
+    // packets written straight from their own buffers, see handleGathering. Off by
+    // default: Data buffers are heap buffers, which the JDK copies into direct ones anyway
+    private final boolean gathering;
+
+    private final int gatherMaxPackets = ConfigProperty.SOCKET_GATHER_MAX_PACKETS.getInteger();
+
+    // a single write takes at most IOV_MAX (1024 on Linux) buffers
+    private static final int GATHER_MAX_BUFFERS = 256;
+
+    private ByteBuffer[] gatherBuffers = new ByteBuffer[64];
+
+    private int gatherBufferOffset = 0;
+
+    private int gatherBufferCount = 0;
+
+    private Packet[] gatherPackets = new Packet[16];
+
+    // index after the last buffer of each gathered packet
+    private int[] gatherPacketEnds = new int[16];
+
+    private int gatherPacketOffset = 0;
+
+    private int gatherPacketCount = 0;
+
     WriteHandler(final Connection connection) {
         super(connection);
         boolean symmetricEncryptionEnabled = CipherHelper.isSymmetricEncryptionEnabled();
@@ -65,6 +90,8 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
         } else {
             packetWriter = new DefaultPacketWriter();
         }
+        gathering = (packetWriter instanceof DefaultPacketWriter)
+                && ConfigProperty.SOCKET_GATHERING_WRITE.getBoolean();
     }
 
     long enqueueTime = 0;
@@ -82,6 +109,10 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
     }
 
     public void handle() {
+        if (gathering) {
+            handleGathering();
+            return;
+        }
         if (lastPacket == null) {
             lastPacket = (Packet) writeQueue.poll();
             if (lastPacket == null) {
@@ -137,6 +168,132 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
         }
     }
 
+    /**
+     * Writes the queued packets with one gathering write of their own
+     * buffers instead of copying them into socketBB first. Up to
+     * gatherMaxPackets packets, and no more packets once GATHER_MAX_BUFFERS
+     * buffers are pending, go into a single write; the ones the
+     * socket did not take completely stay gathered for the next call.
+     */
+    private void handleGathering() {
+        if (gatherPacketOffset == gatherPacketCount) {
+            Packet packet = (Packet) writeQueue.poll();
+            if (packet == null) {
+                ready = true;
+                return;
+            }
+            gather(packet);
+        }
+        if (!connection.live())
+            return;
+        try {
+            while (gatherPacketCount - gatherPacketOffset < gatherMaxPackets
+                    && gatherBufferCount - gatherBufferOffset < GATHER_MAX_BUFFERS) {
+                Packet packet = (Packet) writeQueue.poll();
+                if (packet == null) {
+                    break;
+                }
+                gather(packet);
+            }
+            try {
+                socketChannel.write(gatherBuffers, gatherBufferOffset, writeWindow());
+            } catch (final Exception e) {
+                releaseGathered();
+                handleSocketException(e);
+                return;
+            }
+            while (gatherBufferOffset < gatherBufferCount && !gatherBuffers[gatherBufferOffset].hasRemaining()) {
+                gatherBuffers[gatherBufferOffset++] = null;
+            }
+            while (gatherPacketOffset < gatherPacketCount
+                    && gatherPacketEnds[gatherPacketOffset] <= gatherBufferOffset) {
+                gatherPackets[gatherPacketOffset].returnToContainer();
+                gatherPackets[gatherPacketOffset++] = null;
+            }
+            if (gatherPacketOffset == gatherPacketCount) {
+                gatherPacketOffset = 0;
+                gatherPacketCount = 0;
+                gatherBufferOffset = 0;
+                gatherBufferCount = 0;
+            }
+        } catch (final Throwable t) {
+            logger.log(Level.SEVERE, "Fatal Error at WriteHandler for endPoint: " + connection.getEndPoint(), t);
+            t.printStackTrace();
+            System.exit(0);
+        } finally {
+            ready = false;
+            registerWrite();
+        }
+    }
+
+    // the JDK copies every heap buffer handed to write, so hand no more than the socket can take
+    private int writeWindow() {
+        int bytes = 0;
+        int i = gatherBufferOffset;
+        while (i < gatherBufferCount && bytes < SEND_SOCKET_BUFFER_SIZE) {
+            bytes += gatherBuffers[i++].remaining();
+        }
+        return i - gatherBufferOffset;
+    }
+
+    private void gather(Packet packet) {
+        if (gatherPacketOffset > 0) {
+            compactGathered();
+        }
+        int required = gatherBufferCount + packet.bufferCount();
+        if (required > gatherBuffers.length) {
+            ByteBuffer[] buffers = new ByteBuffer[Math.max(required, gatherBuffers.length * 2)];
+            System.arraycopy(gatherBuffers, 0, buffers, 0, gatherBufferCount);
+            gatherBuffers = buffers;
+        }
+        if (gatherPacketCount == gatherPackets.length) {
+            Packet[] packets = new Packet[gatherPackets.length * 2];
+            int[] ends = new int[packets.length];
+            System.arraycopy(gatherPackets, 0, packets, 0, gatherPacketCount);
+            System.arraycopy(gatherPacketEnds, 0, ends, 0, gatherPacketCount);
+            gatherPackets = packets;
+            gatherPacketEnds = ends;
+        }
+        gatherBufferCount = packet.addBuffers(gatherBuffers, gatherBufferCount);
+        gatherPackets[gatherPacketCount] = packet;
+        gatherPacketEnds[gatherPacketCount++] = gatherBufferCount;
+    }
+
+    // moves the packets still being written to the front of the arrays
+    private void compactGathered() {
+        int packets = gatherPacketCount - gatherPacketOffset;
+        int buffers = gatherBufferCount - gatherBufferOffset;
+        System.arraycopy(gatherPackets, gatherPacketOffset, gatherPackets, 0, packets);
+        System.arraycopy(gatherBuffers, gatherBufferOffset, gatherBuffers, 0, buffers);
+        for (int i = 0; i < packets; i++) {
+            gatherPacketEnds[i] = gatherPacketEnds[gatherPacketOffset + i] - gatherBufferOffset;
+        }
+        for (int i = packets; i < gatherPacketCount; i++) {
+            gatherPackets[i] = null;
+        }
+        for (int i = buffers; i < gatherBufferCount; i++) {
+            gatherBuffers[i] = null;
+        }
+        gatherPacketOffset = 0;
+        gatherPacketCount = packets;
+        gatherBufferOffset = 0;
+        gatherBufferCount = buffers;
+    }
+
+    private void releaseGathered() {
+        for (int i = gatherPacketOffset; i < gatherPacketCount; i++) {
+            gatherPackets[i].returnToContainer();
+            gatherPackets[i] = null;
+        }
+        for (int i = gatherBufferOffset; i < gatherBufferCount; i++) {
+            gatherBuffers[i] = null;
+        }
+        gatherPacketOffset = 0;
+        gatherPacketCount = 0;
+        gatherBufferOffset = 0;
+        gatherBufferCount = 0;
+    }
+
     public void run() {
         informSelector.set(true);
         if (ready) {
@@ -0,0 +1,271 @@
+package com.hazelcast.space;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Typed conditions on the elements of a tuple, all of which must hold.
+ * Element names are the ones SpaceHelper extracts: public field names
+ * and getter method names such as "getPrice".
+ * <pre>
+ * new Criteria().lessThan("price", 100).startsWith("symbol", "IB").in("side", "BUY", "SELL")
+ * </pre>
+ * Criteria are shipped to and evaluated on the members owning the tuples,
+ * so the values must be serializable. Numbers are matched by value
+ * whatever their boxed type: 5, 5L and 5.0 are the same value.
+ */
+public class Criteria implements Serializable {
+
+    private final List<Condition> conditions = new ArrayList<Condition>();
+
+    public Criteria equal(String element, Object value) {
+        return add(new Equal(element, value));
+    }
+
+    public Criteria in(String element, Object... values) {
+        Set<Object> normalized = new HashSet<Object>();
+        for (Object value : values) {
+            normalized.add(normalize(value));
+        }
+        return add(new In(element, normalized));
+    }
+
+    public Criteria startsWith(String element, String prefix) {
+        return add(new Prefix(element, prefix));
+    }
+
+    public Criteria lessThan(String element, Comparable value) {
+        return add(new Range(element, null, false, value, false));
+    }
+
+    public Criteria lessThanOrEqual(String element, Comparable value) {
+        return add(new Range(element, null, false, value, true));
+    }
+
+    public Criteria greaterThan(String element, Comparable value) {
+        return add(new Range(element, value, false, null, false));
+    }
+
+    public Criteria greaterThanOrEqual(String element, Comparable value) {
+        return add(new Range(element, value, true, null, false));
+    }
+
+    /**
+     * lower <= value <= upper
+     */
+    public Criteria between(String element, Comparable lower, Comparable upper) {
+        return add(new Range(element, lower, true, upper, true));
+    }
+
+    private Criteria add(Condition condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    List<Condition> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * @return the value the element is required to be equal to, or null
+     */
+    Object getEqualValue(String element) {
+        for (Condition condition : conditions) {
+            if (condition instanceof Equal && condition.element.equals(element)) {
+                return ((Equal) condition).value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps numbers of equal value to the same object, integral values to a
+     * Long and any other to a Double, so they can be compared with equals
+     * and looked up in hash based indexes. Anything else is returned as is.
+     */
+    static Object normalize(Object value) {
+        if (value instanceof Long) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (d == Math.rint(d) && Math.abs(d) < 0x1p63) {
+                return (long) d;
+            }
+            return d;
+        }
+        return value;
+    }
+
+    public boolean matches(Map elements) {
+        if (elements == null) {
+            return false;
+        }
+        for (Condition condition : conditions) {
+            Object value = elements.get(condition.element);
+            if (value == null || !condition.matches(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Criteria && conditions.equals(((Criteria) o).conditions));
+    }
+
+    @Override
+    public int hashCode() {
+        return conditions.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Criteria" + conditions;
+    }
+
+    abstract static class Condition implements Serializable {
+        final String element;
+
+        Condition(String element) {
+            this.element = element;
+        }
+
+        abstract boolean matches(Object value);
+
+        /**
+         * The exact values this condition accepts, or null if it has to be
+         * checked against every distinct value of the element.
+         */
+        Collection<Object> exactValues() {
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o != null && getClass() == o.getClass() && toString().equals(o.toString());
+        }
+
+        @Override
+        public int hashCode() {
+            return toString().hashCode();
+        }
+    }
+
+    static class Equal extends Condition {
+        final Object value;
+
+        Equal(String element, Object value) {
+            super(element);
+            this.value = normalize(value);
+        }
+
+        boolean matches(Object value) {
+            return this.value.equals(normalize(value));
+        }
+
+        Collection<Object> exactValues() {
+            return Collections.singleton(value);
+        }
+
+        @Override
+        public String toString() {
+            return element + " = " + value;
+        }
+    }
+
+    static class In extends Condition {
+        final Set<Object> values;
+
+        In(String element, Set<Object> values) {
+            super(element);
+            this.values = values;
+        }
+
+        boolean matches(Object value) {
+            return values.contains(normalize(value));
+        }
+
+        Collection<Object> exactValues() {
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            return element + " in " + values;
+        }
+    }
+
+    static class Prefix extends Condition {
+        final String prefix;
+
+        Prefix(String element, String prefix) {
+            super(element);
+            this.prefix = prefix;
+        }
+
+        boolean matches(Object value) {
+            return value instanceof String && ((String) value).startsWith(prefix);
+        }
+
+        @Override
+        public String toString() {
+            return element + " starts with " + prefix;
+        }
+    }
+
+    static class Range extends Condition {
+        final Comparable lower;
+        final boolean lowerInclusive;
+        final Comparable upper;
+        final boolean upperInclusive;
+
+        Range(String element, Comparable lower, boolean lowerInclusive, Comparable upper, boolean upperInclusive) {
+            super(element);
+            this.lower = (Comparable) normalize(lower);
+            this.lowerInclusive = lowerInclusive;
+            this.upper = (Comparable) normalize(upper);
+            this.upperInclusive = upperInclusive;
+        }
+
+        boolean matches(Object value) {
+            value = normalize(value);
+            if (lower != null) {
+                Integer c = compare(value, lower);
+                if (c == null || c < 0 || (c == 0 && !lowerInclusive)) {
+                    return false;
+                }
+            }
+            if (upper != null) {
+                Integer c = compare(value, upper);
+                if (c == null || c > 0 || (c == 0 && !upperInclusive)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Takes normalized values: a Long and a Double are compared by value,
+         * anything else only against a bound of its own class.
+         */
+        private static Integer compare(Object value, Comparable bound) {
+            if (value.getClass() == bound.getClass()) {
+                return ((Comparable) value).compareTo(bound);
+            }
+            if (value instanceof Number && bound instanceof Number) {
+                return Double.compare(((Number) value).doubleValue(), ((Number) bound).doubleValue());
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return element + " in " + (lowerInclusive ? "[" : "(") + lower + ", " + upper + (upperInclusive ? "]" : ")");
+        }
+    }
+}
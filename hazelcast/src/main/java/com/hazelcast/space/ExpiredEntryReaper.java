@@ -1,11 +1,127 @@
 package com.hazelcast.space;
 
+import com.hazelcast.impl.BaseManager;
+import com.hazelcast.impl.ConcurrentMapManager;
+import com.hazelcast.impl.Node;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Data;
+
+import static com.hazelcast.nio.BufferUtil.doHardCopy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
+ * Evicts the expired entries this member owns. Runs periodically on the
+ * service thread, takes the due deadlines off the heap of each space index
+ * and evicts a batch of them from a local executor thread. Eviction fires
+ * the evicted event which the space listeners report as EXPIRED.
+ * <p/>
  * Created by IntelliJ IDEA.
  * User: dth
  * Date: 30/08/2009
  * Time: 5:19:11 PM
  * To change this template use File | Settings | File Templates.
  */
-public class ExpiredEntryReaper {
+public class ExpiredEntryReaper implements Runnable {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final long RETRY_MILLIS = 5000;
+
+    private final Logger logger = Logger.getLogger(ExpiredEntryReaper.class.getName());
+
+    private final ConcurrentMapManager concurrentMapManager;
+    private final Address thisAddress;
+
+    // map name -> index, only touched by the service thread
+    private final Map<String, SpaceIndex> indexes = new HashMap<String, SpaceIndex>();
+
+    private final AtomicBoolean reaping = new AtomicBoolean(false);
+
+    public ExpiredEntryReaper(Node node) {
+        this.concurrentMapManager = node.concurrentMapManager;
+        this.thisAddress = node.getThisAddress();
+    }
+
+    void addIndex(String name, SpaceIndex index) {
+        indexes.put(name, index);
+    }
+
+    public void run() {
+        if (reaping.get()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        final Map<String, List<Data>> expired = new HashMap<String, List<Data>>();
+        int count = 0;
+        for (Map.Entry<String, SpaceIndex> entry : indexes.entrySet()) {
+            SpaceIndex index = entry.getValue();
+            List<Data> keys = null;
+            for (Data key : index.pollExpired(now, BATCH_SIZE - count)) {
+                if (thisAddress.equals(concurrentMapManager.getKeyOwner(key))) {
+                    if (keys == null) {
+                        keys = new ArrayList<Data>();
+                    }
+                    keys.add(doHardCopy(key));
+                } else {
+                    // a backup, the owner reaps it; look again in case the owner dies
+                    index.deferExpired(key, now + RETRY_MILLIS);
+                }
+            }
+            if (keys != null) {
+                expired.put(entry.getKey(), keys);
+                count += keys.size();
+            }
+            if (count >= BATCH_SIZE) {
+                break;
+            }
+        }
+        if (count > 0) {
+            reaping.set(true);
+            logger.log(Level.FINEST, "Reaping " + count + " expired space entries");
+            concurrentMapManager.executeLocally(new Runnable() {
+                public void run() {
+                    try {
+                        final Map<String, List<Data>> failed = new HashMap<String, List<Data>>();
+                        for (Map.Entry<String, List<Data>> entry : expired.entrySet()) {
+                            for (Data key : entry.getValue()) {
+                                if (!concurrentMapManager.evict(entry.getKey(), key)) {
+                                    // locked, listened to or migrating
+                                    List<Data> keys = failed.get(entry.getKey());
+                                    if (keys == null) {
+                                        keys = new ArrayList<Data>();
+                                        failed.put(entry.getKey(), keys);
+                                    }
+                                    keys.add(key);
+                                }
+                            }
+                        }
+                        if (!failed.isEmpty()) {
+                            concurrentMapManager.enqueueAndReturn(new BaseManager.Processable() {
+                                public void process() {
+                                    long retryAt = System.currentTimeMillis() + RETRY_MILLIS;
+                                    for (Map.Entry<String, List<Data>> entry : failed.entrySet()) {
+                                        SpaceIndex index = indexes.get(entry.getKey());
+                                        for (Data key : entry.getValue()) {
+                                            index.deferExpired(key, retryAt);
+                                        }
+                                    }
+                                }
+                            });
+                        }
+                    } catch (Exception e) {
+                        logger.log(Level.FINEST, "Reaping expired space entries", e);
+                    } finally {
+                        reaping.set(false);
+                    }
+                }
+            });
+        }
+    }
 }
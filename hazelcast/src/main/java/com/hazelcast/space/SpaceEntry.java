@@ -1,31 +1,55 @@
 package com.hazelcast.space;
 
-import java.io.Serializable;
+import com.hazelcast.nio.DataSerializable;
+
+import java.io.*;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * A tuple in the space. The user object is kept in its serialized form and
+ * only deserialized by getEntry, while the elements are written as a flat
+ * list of typed values, so members can match templates without touching
+ * the user object.
  */
-public class SpaceEntry implements Serializable {
+public class SpaceEntry implements DataSerializable, Serializable {
 
     private final static Logger logger = Logger.getLogger(SpaceEntry.class.getName());
 
+    private static final byte TYPE_OBJECT = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_SHORT = 6;
+    private static final byte TYPE_BYTE = 7;
+    private static final byte TYPE_BOOLEAN = 8;
+    private static final byte TYPE_CHARACTER = 9;
+
     private long id;
     private Map elements;
-    private Object entry;
+    private byte[] entryBytes;
+    private transient Object entry;
     private long expiry;
+    private boolean routed;
+    private int routingHash;
+
+    public SpaceEntry() {
+    }
 
     public SpaceEntry(long id, Object entry, Map elements, long timeToLive) {
         this.id = id;
-        this.entry = entry;
+        setEntry(entry);
         this.elements = elements;
         this.expiry = System.currentTimeMillis() + timeToLive;
         if (this.expiry < 0) {
             this.expiry = Long.MAX_VALUE;
         }
-        logger.log(Level.INFO, "Setting expiry to " + new Date(this.expiry));
+        logger.log(Level.FINEST, "Setting expiry to " + new Date(this.expiry));
     }
 
     public Map getElements() {
@@ -37,11 +61,15 @@ public class SpaceEntry implements Serializable {
     }
 
     public Object getEntry() {
+        if (entry == null && entryBytes != null) {
+            entry = fromBytes(entryBytes);
+        }
         return entry;
     }
 
     public void setEntry(Object entry) {
         this.entry = entry;
+        this.entryBytes = (entry == null) ? null : toBytes(entry);
     }
 
     public long getExpiration() {
@@ -50,13 +78,172 @@ public class SpaceEntry implements Serializable {
 
     public void setExpiration(long expiry) {
         this.expiry = expiry;
-        logger.log(Level.INFO, "Setting expiry to " + new Date(this.expiry));
+        logger.log(Level.FINEST, "Setting expiry to " + new Date(this.expiry));
     }
 
     public long getId() {
         return id;
     }
 
+    /**
+     * Places the entry with the tuples sharing its routing value.
+     */
+    public void setRoutingHash(int routingHash) {
+        this.routed = true;
+        this.routingHash = routingHash;
+    }
+
+    /**
+     * @return the key of the entry in its space map, the id or a SpaceKey when routed
+     */
+    public Object getKey() {
+        return (routed) ? new SpaceKey(id, routingHash) : (Object) id;
+    }
+
+    public void writeData(DataOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeLong(expiry);
+        out.writeBoolean(routed);
+        if (routed) {
+            out.writeInt(routingHash);
+        }
+        int size = (elements == null) ? 0 : elements.size();
+        out.writeInt(size);
+        if (size > 0) {
+            for (Object e : elements.entrySet()) {
+                Map.Entry element = (Map.Entry) e;
+                out.writeUTF((String) element.getKey());
+                writeValue(out, element.getValue());
+            }
+        }
+        if (entryBytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(entryBytes.length);
+            out.write(entryBytes);
+        }
+    }
+
+    public void readData(DataInput in) throws IOException {
+        id = in.readLong();
+        expiry = in.readLong();
+        routed = in.readBoolean();
+        if (routed) {
+            routingHash = in.readInt();
+        }
+        int size = in.readInt();
+        elements = new LinkedHashMap<String, Object>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String name = in.readUTF();
+            elements.put(name, readValue(in));
+        }
+        int length = in.readInt();
+        if (length >= 0) {
+            entryBytes = new byte[length];
+            in.readFully(entryBytes);
+        }
+    }
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(TYPE_SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(TYPE_BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Character) {
+            out.writeByte(TYPE_CHARACTER);
+            out.writeChar((Character) value);
+        } else {
+            out.writeByte(TYPE_OBJECT);
+            byte[] bytes = toBytes(value);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static Object readValue(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_STRING:
+                return in.readUTF();
+            case TYPE_INTEGER:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_FLOAT:
+                return in.readFloat();
+            case TYPE_SHORT:
+                return in.readShort();
+            case TYPE_BYTE:
+                return in.readByte();
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_CHARACTER:
+                return in.readChar();
+            default:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return fromBytes(bytes);
+        }
+    }
+
+    // plain java serialization, the thread's Serializer may be in use by the caller
+    private static byte[] toBytes(Object o) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bos);
+            oos.writeObject(o);
+            oos.close();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Object fromBytes(byte[] bytes) {
+        try {
+            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+                @Override
+                protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+                    if (loader != null) {
+                        try {
+                            return Class.forName(desc.getName(), false, loader);
+                        } catch (ClassNotFoundException ignored) {
+                        }
+                    }
+                    return super.resolveClass(desc);
+                }
+            };
+            return ois.readObject();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -78,7 +265,6 @@ public class SpaceEntry implements Serializable {
     public String toString() {
         return "SpaceEntry{" +
                 "id=" + id +
-                ", entryClass=" + entry.getClass().getName() +
                 ", expiry=" + new Date(expiry) +
                 '}';
     }
@@ -1,11 +1,12 @@
 package com.hazelcast.space;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.HashMap;
-import java.lang.reflect.Method;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Created by IntelliJ IDEA.
@@ -16,62 +17,153 @@ import java.lang.reflect.Field;
  */
 public class SpaceHelper {
 
+    private static final ConcurrentMap<Class, TupleSchema> schemas = new ConcurrentHashMap<Class, TupleSchema>();
+
+    /**
+     * Extracts the non-null public getXxx'ers and fields of the object, in
+     * the stable order of its class schema. Values are kept as they are so
+     * they are compared with their own equals.
+     */
     public static Map extractElements(Object o) {
-        Map<String, String> m = extractMethods(o);
-        m.putAll(extractFields(o));
-        return m;
+        return getSchema(o.getClass()).extract(o);
     }
 
     public static boolean elementsMatch(Map templateElements, Map entryElements) {
-        Set templateSet = templateElements.entrySet();
-        Set entrySet = entryElements.entrySet();
-        return entrySet.containsAll(templateSet);
+        if (entryElements == null) {
+            return false;
+        }
+        for (Object e : templateElements.entrySet()) {
+            Map.Entry element = (Map.Entry) e;
+            Object value = entryElements.get(element.getKey());
+            if (value == null || !Criteria.normalize(value).equals(Criteria.normalize(element.getValue()))) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    /**
+     * @param criteria template elements or a Criteria
+     */
+    public static boolean matches(Object criteria, Map entryElements) {
+        if (criteria instanceof Criteria) {
+            return ((Criteria) criteria).matches(entryElements);
+        }
+        return elementsMatch((Map) criteria, entryElements);
+    }
 
     /**
-     * Extract public getXxx'ers
+     * @return the name of the element annotated with SpaceRouting, or null
      */
-    private static Map<String, String> extractMethods(Object o) {
-        Method[] methods = o.getClass().getMethods();
-        Map<String, String> map = new HashMap<String, String>();
-        for (Method m : methods) {
-            String name = m.getName();
-            if (name.startsWith("get") && m.getTypeParameters().length == 0) {
-                try {
-                    Object v = m.invoke(o, null);
-                    if (v != null) {
-                        // TODO: remove "class" from getClass output
-                        map.put(name, String.valueOf(v));
-                    }
-                } catch (IllegalAccessException e) {
-                    // TODO
-                } catch (InvocationTargetException e) {
-                    // TODO
-                }
+    public static String getRoutingElement(Class clazz) {
+        return getSchema(clazz).routingElement;
+    }
+
+    static TupleSchema getSchema(Class clazz) {
+        TupleSchema schema = schemas.get(clazz);
+        if (schema == null) {
+            schema = new TupleSchema(clazz);
+            TupleSchema existing = schemas.putIfAbsent(clazz, schema);
+            if (existing != null) {
+                schema = existing;
             }
         }
-        return map;
+        return schema;
     }
 
     /**
-     * Extract public fields from the object.
+     * The accessors of a tuple class, resolved once and sorted by element name.
      */
-    private static Map<String, String> extractFields(Object o) {
-        Field[] fields = o.getClass().getFields();
-        Map<String, String> m = new HashMap<String, String>();
-        for (Field f : fields) {
-            try {
-                String name = f.getName();
-                Object value = f.get(o);
-                if (value != null) {
-                    m.put(name, String.valueOf(value));
+    static class TupleSchema {
+        final Accessor[] accessors;
+        final String routingElement;
+
+        TupleSchema(Class clazz) {
+            SortedMap<String, Accessor> sorted = new TreeMap<String, Accessor>();
+            String routing = null;
+            for (Method m : clazz.getMethods()) {
+                String name = m.getName();
+                if (name.startsWith("get") && !"getClass".equals(name)
+                        && m.getParameterTypes().length == 0
+                        && m.getReturnType() != void.class
+                        && !Modifier.isStatic(m.getModifiers())) {
+                    sorted.put(name, new MethodAccessor(name, m));
+                    if (m.isAnnotationPresent(SpaceRouting.class)) {
+                        routing = name;
+                    }
+                }
+            }
+            for (Field f : clazz.getFields()) {
+                if (!Modifier.isStatic(f.getModifiers())) {
+                    sorted.put(f.getName(), new FieldAccessor(f.getName(), f));
+                    if (f.isAnnotationPresent(SpaceRouting.class)) {
+                        routing = f.getName();
+                    }
                 }
+            }
+            routingElement = routing;
+            accessors = sorted.values().toArray(new Accessor[sorted.size()]);
+        }
+
+        Map extract(Object o) {
+            Map<String, Object> m = new LinkedHashMap<String, Object>(accessors.length * 2);
+            for (Accessor accessor : accessors) {
+                Object v = accessor.get(o);
+                if (v != null) {
+                    m.put(accessor.name, v);
+                }
+            }
+            return m;
+        }
+    }
+
+    static abstract class Accessor {
+        final String name;
+
+        Accessor(String name) {
+            this.name = name;
+        }
+
+        abstract Object get(Object o);
+    }
+
+    static class MethodAccessor extends Accessor {
+        final Method method;
+
+        MethodAccessor(String name, Method method) {
+            super(name);
+            this.method = method;
+            try {
+                method.setAccessible(true);
+            } catch (SecurityException ignored) {
+            }
+        }
+
+        Object get(Object o) {
+            try {
+                return method.invoke(o);
             } catch (IllegalAccessException e) {
-                // TODO
+                return null;
+            } catch (InvocationTargetException e) {
+                return null;
             }
         }
-        return m;
     }
 
+    static class FieldAccessor extends Accessor {
+        final Field field;
+
+        FieldAccessor(String name, Field field) {
+            super(name);
+            this.field = field;
+        }
+
+        Object get(Object o) {
+            try {
+                return field.get(o);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+    }
 }
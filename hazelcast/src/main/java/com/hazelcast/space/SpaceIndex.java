@@ -0,0 +1,269 @@
+package com.hazelcast.space;
+
+import com.hazelcast.impl.MapIndex;
+import com.hazelcast.nio.Data;
+
+import static com.hazelcast.nio.BufferUtil.toObject;
+
+import java.util.*;
+
+/**
+ * Inverted index of the SpaceEntry elements stored in a space map:
+ * element name -> element value -> keys of the entries holding it.
+ * Lives on the service thread of the member owning the records, which
+ * evaluates the templates so only matching entries leave the member.
+ * Element values are indexed in their Criteria.normalize form.
+ */
+public class SpaceIndex implements MapIndex {
+
+    private final Map<Data, Map> entryElements = new HashMap<Data, Map>();
+    // lease table: key -> expiry of the entry
+    private final Map<Data, Long> expirations = new HashMap<Data, Long>();
+    private final Map<Object, Map<Object, Set<Data>>> postings = new HashMap<Object, Map<Object, Set<Data>>>();
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<Deadline>();
+
+    public void index(Data key, Data value) {
+        Object o = toObject(value, false);
+        Map elements = (o instanceof SpaceEntry) ? ((SpaceEntry) o).getElements() : null;
+        if (elements != null && elements.equals(entryElements.get(key))) {
+            // same elements, a renewal: the postings stay as they are
+            renew(key, ((SpaceEntry) o).getExpiration());
+            return;
+        }
+        remove(key);
+        if (elements == null) {
+            return;
+        }
+        entryElements.put(key, elements);
+        expirations.put(key, Long.MAX_VALUE);
+        renew(key, ((SpaceEntry) o).getExpiration());
+        for (Object e : elements.entrySet()) {
+            Map.Entry element = (Map.Entry) e;
+            Map<Object, Set<Data>> values = postings.get(element.getKey());
+            if (values == null) {
+                values = new HashMap<Object, Set<Data>>();
+                postings.put(element.getKey(), values);
+            }
+            Object elementValue = Criteria.normalize(element.getValue());
+            Set<Data> keys = values.get(elementValue);
+            if (keys == null) {
+                keys = new HashSet<Data>();
+                values.put(elementValue, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    public void remove(Data key) {
+        Map elements = entryElements.remove(key);
+        expirations.remove(key);
+        if (elements == null) {
+            return;
+        }
+        for (Object e : elements.entrySet()) {
+            Map.Entry element = (Map.Entry) e;
+            Map<Object, Set<Data>> values = postings.get(element.getKey());
+            if (values == null) {
+                continue;
+            }
+            Object elementValue = Criteria.normalize(element.getValue());
+            Set<Data> keys = values.get(elementValue);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    values.remove(elementValue);
+                    if (values.isEmpty()) {
+                        postings.remove(element.getKey());
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        entryElements.clear();
+        expirations.clear();
+        postings.clear();
+        deadlines.clear();
+    }
+
+    /**
+     * Sets the expiry of an indexed entry in the lease table in place. The
+     * deadline of the previous expiry stays on the heap and is dropped when polled.
+     *
+     * @return false if the entry is not indexed here
+     */
+    public boolean renew(Data key, long expiry) {
+        Long current = expirations.get(key);
+        if (current == null) {
+            return false;
+        }
+        if (current != expiry) {
+            expirations.put(key, expiry);
+            if (expiry != Long.MAX_VALUE) {
+                deadlines.offer(new Deadline(expiry, key));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes up to max keys whose entries expired by now off the deadline heap.
+     * Deadlines of removed or renewed entries are dropped on the way.
+     */
+    public List<Data> pollExpired(long now, int max) {
+        List<Data> expired = null;
+        while (!deadlines.isEmpty() && deadlines.peek().at < now) {
+            Deadline deadline = deadlines.poll();
+            Long expiry = expirations.get(deadline.key);
+            if (expiry != null && expiry == deadline.expiry) {
+                if (expired == null) {
+                    expired = new ArrayList<Data>();
+                }
+                expired.add(deadline.key);
+                if (expired.size() >= max) {
+                    break;
+                }
+            }
+        }
+        return (expired == null) ? Collections.<Data>emptyList() : expired;
+    }
+
+    /**
+     * Puts an expired key back on the heap to be polled again at the given time.
+     */
+    public void deferExpired(Data key, long at) {
+        if (expirations.containsKey(key)) {
+            deadlines.offer(new Deadline(expirations.get(key), key, at));
+        }
+    }
+
+    /**
+     * Resolves the keys of the unexpired entries matching the given
+     * template elements or Criteria by walking the smallest candidate set.
+     */
+    public Collection<Data> query(Object criteria) {
+        if (criteria instanceof Criteria) {
+            return query((Criteria) criteria);
+        }
+        if (!(criteria instanceof Map)) {
+            return null;
+        }
+        Map templateElements = (Map) criteria;
+        long now = System.currentTimeMillis();
+        if (templateElements.isEmpty()) {
+            return unexpired(entryElements.keySet(), now);
+        }
+        Set<Data> smallest = null;
+        for (Object e : templateElements.entrySet()) {
+            Map.Entry element = (Map.Entry) e;
+            Map<Object, Set<Data>> values = postings.get(element.getKey());
+            Set<Data> keys = (values == null) ? null : values.get(Criteria.normalize(element.getValue()));
+            if (keys == null) {
+                return Collections.emptyList();
+            }
+            if (smallest == null || keys.size() < smallest.size()) {
+                smallest = keys;
+            }
+        }
+        List<Data> result = new ArrayList<Data>(smallest.size());
+        for (Data key : smallest) {
+            if (!hasExpired(key, now) && SpaceHelper.elementsMatch(templateElements, entryElements.get(key))) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Equality and set conditions look their values up in the postings,
+     * ranges and prefixes test the distinct values of their element, so
+     * the entries themselves are only visited for the smallest candidate set.
+     */
+    private Collection<Data> query(Criteria criteria) {
+        long now = System.currentTimeMillis();
+        Collection<Data> smallest = null;
+        for (Criteria.Condition condition : criteria.getConditions()) {
+            Collection<Data> keys = candidates(condition);
+            if (keys.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (smallest == null || keys.size() < smallest.size()) {
+                smallest = keys;
+            }
+        }
+        if (smallest == null) {
+            return unexpired(entryElements.keySet(), now);
+        }
+        List<Data> result = new ArrayList<Data>(smallest.size());
+        for (Data key : smallest) {
+            if (!hasExpired(key, now) && criteria.matches(entryElements.get(key))) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    private Collection<Data> candidates(Criteria.Condition condition) {
+        Map<Object, Set<Data>> values = postings.get(condition.element);
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        Collection<Object> exactValues = condition.exactValues();
+        if (exactValues != null && exactValues.size() == 1) {
+            Set<Data> keys = values.get(exactValues.iterator().next());
+            return (keys == null) ? Collections.<Data>emptyList() : keys;
+        }
+        Set<Data> candidates = new HashSet<Data>();
+        if (exactValues != null) {
+            for (Object value : exactValues) {
+                Set<Data> keys = values.get(value);
+                if (keys != null) {
+                    candidates.addAll(keys);
+                }
+            }
+        } else {
+            for (Map.Entry<Object, Set<Data>> value : values.entrySet()) {
+                if (condition.matches(value.getKey())) {
+                    candidates.addAll(value.getValue());
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private List<Data> unexpired(Collection<Data> keys, long now) {
+        List<Data> result = new ArrayList<Data>(keys.size());
+        for (Data key : keys) {
+            if (!hasExpired(key, now)) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    static class Deadline implements Comparable<Deadline> {
+        final long expiry;
+        final long at;
+        final Data key;
+
+        Deadline(long expiry, Data key) {
+            this(expiry, key, expiry);
+        }
+
+        Deadline(long expiry, Data key, long at) {
+            this.expiry = expiry;
+            this.key = key;
+            this.at = at;
+        }
+
+        public int compareTo(Deadline other) {
+            return (at < other.at) ? -1 : ((at == other.at) ? 0 : 1);
+        }
+    }
+
+    private boolean hasExpired(Data key, long now) {
+        Long expiry = expirations.get(key);
+        return expiry != null && expiry < now;
+    }
+}
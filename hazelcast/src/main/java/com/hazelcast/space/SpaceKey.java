@@ -0,0 +1,63 @@
+package com.hazelcast.space;
+
+import com.hazelcast.core.PartitionAware;
+import com.hazelcast.nio.DataSerializable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Map key of a tuple whose class declares a routing element. The entry id
+ * keeps it unique, the routing hash decides the member owning it.
+ */
+public class SpaceKey implements DataSerializable, PartitionAware, Serializable {
+
+    private long id;
+    private int routingHash;
+
+    public SpaceKey() {
+    }
+
+    public SpaceKey(long id, int routingHash) {
+        this.id = id;
+        this.routingHash = routingHash;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Object getPartitionKey() {
+        return routingHash;
+    }
+
+    public void writeData(DataOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeInt(routingHash);
+    }
+
+    public void readData(DataInput in) throws IOException {
+        id = in.readLong();
+        routingHash = in.readInt();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SpaceKey that = (SpaceKey) o;
+        return id == that.id && routingHash == that.routingHash;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (id ^ (id >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "SpaceKey{id=" + id + ", routingHash=" + routingHash + '}';
+    }
+}
@@ -0,0 +1,18 @@
+package com.hazelcast.space;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the public field or getter whose value places the tuples of a class
+ * in the space. Tuples with equal routing values are owned by the same member,
+ * and a template or Criteria fixing the routing value is answered by that
+ * member alone. The value is placed by the hash of its serialized form, so
+ * it must serialize the same way on every member; its hashCode is not used.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SpaceRouting {
+}
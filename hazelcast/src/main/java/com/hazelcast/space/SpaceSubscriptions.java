@@ -0,0 +1,462 @@
+package com.hazelcast.space;
+
+import com.hazelcast.core.DistributedTask;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.Member;
+import com.hazelcast.core.MembershipEvent;
+import com.hazelcast.core.MembershipListener;
+import com.hazelcast.impl.BaseManager;
+import com.hazelcast.impl.ConcurrentMapManager;
+import com.hazelcast.impl.FactoryImpl;
+import com.hazelcast.impl.MemberImpl;
+import com.hazelcast.impl.OwnerEntryListener;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Data;
+import com.hazelcast.space.event.SpaceEvent;
+import com.hazelcast.space.event.SpaceEventListener;
+import com.hazelcast.space.event.SpaceEventType;
+
+import static com.hazelcast.nio.BufferUtil.toObject;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The notify subscriptions of the space. Every member keeps the templates
+ * of all subscriptions and matches the events of the entries it owns
+ * against them on its service thread, so non-matching writes never leave
+ * the owner. Matching events are queued per subscribing member and shipped
+ * in batches, once BATCH_SIZE are pending or on the next periodic tick.
+ * A subscriber has at most one batch in flight, so it sees the batches in
+ * the order they were sent.
+ * <p/>
+ * A member fetches the subscriptions of the others when its space starts,
+ * and the subscriptions of a member that left are dropped.
+ */
+public class SpaceSubscriptions implements OwnerEntryListener, Runnable, MembershipListener {
+
+    static final int BATCH_SIZE = 100;
+
+    private final Logger logger = Logger.getLogger(SpaceSubscriptions.class.getName());
+
+    private final FactoryImpl factory;
+    private final ConcurrentMapManager concurrentMapManager;
+
+    // the subscriptions of this member and their listeners, by subscription id
+    private final ConcurrentMap<Long, Subscription> own = new ConcurrentHashMap<Long, Subscription>();
+    private final ConcurrentMap<Long, SpaceEventListener> listeners = new ConcurrentHashMap<Long, SpaceEventListener>();
+
+    // map name -> subscriptions of the whole cluster, only touched by the service thread
+    private final ConcurrentMap<String, MapSubscriptions> subscriptions = new ConcurrentHashMap<String, MapSubscriptions>();
+
+    // subscriber -> batches waiting for the one in flight to be delivered
+    private final ConcurrentMap<Address, Outbox> outboxes = new ConcurrentHashMap<Address, Outbox>();
+
+    public SpaceSubscriptions(FactoryImpl factory) {
+        this.factory = factory;
+        this.concurrentMapManager = factory.node.concurrentMapManager;
+    }
+
+    void addListener(Subscription subscription, SpaceEventListener listener) {
+        own.put(subscription.id, subscription);
+        listeners.put(subscription.id, listener);
+    }
+
+    Subscription getOwn(long id) {
+        return own.get(id);
+    }
+
+    void setOwn(Subscription subscription) {
+        own.replace(subscription.id, subscription);
+    }
+
+    void removeListener(long id) {
+        own.remove(id);
+        listeners.remove(id);
+    }
+
+    /**
+     * Adds, replaces or with a null subscription removes the subscription
+     * with the given id, on the service thread.
+     */
+    void update(final long id, final Subscription subscription) {
+        if (subscription == null) {
+            for (final MapSubscriptions mapSubscriptions : subscriptions.values()) {
+                concurrentMapManager.enqueueAndReturn(new BaseManager.Processable() {
+                    public void process() {
+                        mapSubscriptions.byId.remove(id);
+                    }
+                });
+            }
+            return;
+        }
+        final MapSubscriptions mapSubscriptions = getMapSubscriptions("c:" + TupleSpaceImpl.SPACE_PREFIX + subscription.className);
+        concurrentMapManager.enqueueAndReturn(new BaseManager.Processable() {
+            public void process() {
+                mapSubscriptions.byId.put(id, subscription);
+            }
+        });
+    }
+
+    private MapSubscriptions getMapSubscriptions(String name) {
+        MapSubscriptions mapSubscriptions = subscriptions.get(name);
+        if (mapSubscriptions == null) {
+            mapSubscriptions = new MapSubscriptions(name);
+            MapSubscriptions existing = subscriptions.putIfAbsent(name, mapSubscriptions);
+            if (existing != null) {
+                mapSubscriptions = existing;
+            }
+        }
+        return mapSubscriptions;
+    }
+
+    public void entryEvent(String name, int eventType, Data key, Data value) {
+        MapSubscriptions mapSubscriptions = subscriptions.get(name);
+        if (mapSubscriptions == null || value == null) {
+            return;
+        }
+        mapSubscriptions.match(eventType, value);
+    }
+
+    /**
+     * Fetches the subscriptions of the other members once the space of this
+     * member is up. A joining member runs this itself: while it joins, its
+     * space does not exist yet to take subscriptions pushed to it.
+     */
+    void fetch() {
+        concurrentMapManager.executeLocally(new Runnable() {
+            public void run() {
+                for (Member member : factory.getCluster().getMembers()) {
+                    if (member.localMember()) {
+                        continue;
+                    }
+                    DistributedTask<List<Subscription>> fetch =
+                            new DistributedTask<List<Subscription>>(new FetchTask(factory.getName()), member);
+                    try {
+                        factory.getExecutorService().execute(fetch);
+                        for (Subscription subscription : fetch.get()) {
+                            update(subscription.id, subscription);
+                        }
+                    } catch (Exception e) {
+                        logger.log(Level.FINEST, "Fetching subscriptions of " + member, e);
+                    }
+                }
+            }
+        });
+    }
+
+    public void memberAdded(MembershipEvent membershipEvent) {
+    }
+
+    public void memberRemoved(MembershipEvent membershipEvent) {
+        final Address subscriber = ((MemberImpl) membershipEvent.getMember()).getAddress();
+        outboxes.remove(subscriber);
+        for (final MapSubscriptions mapSubscriptions : subscriptions.values()) {
+            concurrentMapManager.enqueueAndReturn(new BaseManager.Processable() {
+                public void process() {
+                    mapSubscriptions.removeSubscriber(subscriber);
+                }
+            });
+        }
+    }
+
+    /**
+     * Periodic tick on the service thread: has each map send whatever is
+     * pending and drop the expired subscriptions.
+     */
+    public void run() {
+        for (MapSubscriptions mapSubscriptions : subscriptions.values()) {
+            mapSubscriptions.flush();
+        }
+    }
+
+    /**
+     * The subscriptions to one space map and their pending events,
+     * only touched by the service thread.
+     */
+    class MapSubscriptions {
+        final String name;
+        final Map<Long, Subscription> byId = new HashMap<Long, Subscription>();
+        final Map<Address, List<Notification>> pending = new HashMap<Address, List<Notification>>();
+
+        MapSubscriptions(String name) {
+            this.name = name;
+        }
+
+        void match(int eventType, Data value) {
+            if (byId.isEmpty()) {
+                return;
+            }
+            Object o = toObject(value, false);
+            if (!(o instanceof SpaceEntry)) {
+                return;
+            }
+            SpaceEntry entry = (SpaceEntry) o;
+            long now = System.currentTimeMillis();
+            for (Iterator<Subscription> it = byId.values().iterator(); it.hasNext();) {
+                Subscription subscription = it.next();
+                if (subscription.expiry < now) {
+                    it.remove();
+                } else if (SpaceHelper.matches(subscription.criteria, entry.getElements())) {
+                    List<Notification> batch = pending.get(subscription.subscriber);
+                    if (batch == null) {
+                        batch = new ArrayList<Notification>();
+                        pending.put(subscription.subscriber, batch);
+                    }
+                    batch.add(new Notification(subscription.id, entry.getId(), toSpaceEventType(eventType)));
+                    if (batch.size() >= BATCH_SIZE) {
+                        send(subscription.subscriber, pending.remove(subscription.subscriber));
+                    }
+                }
+            }
+        }
+
+        void removeSubscriber(Address subscriber) {
+            pending.remove(subscriber);
+            for (Iterator<Subscription> it = byId.values().iterator(); it.hasNext();) {
+                if (subscriber.equals(it.next().subscriber)) {
+                    it.remove();
+                }
+            }
+        }
+
+        void flush() {
+            if (!pending.isEmpty()) {
+                for (Map.Entry<Address, List<Notification>> batch : pending.entrySet()) {
+                    send(batch.getKey(), batch.getValue());
+                }
+                pending.clear();
+            }
+            long now = System.currentTimeMillis();
+            for (Iterator<Subscription> it = byId.values().iterator(); it.hasNext();) {
+                if (it.next().expiry < now) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void send(Address subscriber, List<Notification> batch) {
+        Outbox outbox = outboxes.get(subscriber);
+        if (outbox == null) {
+            outbox = new Outbox(subscriber);
+            Outbox existing = outboxes.putIfAbsent(subscriber, outbox);
+            if (existing != null) {
+                outbox = existing;
+            }
+        }
+        if (outbox.offer(batch)) {
+            concurrentMapManager.executeLocally(outbox);
+        }
+    }
+
+    /**
+     * The batches for one subscriber. Only one thread drains it at a time
+     * and it waits for each batch to be delivered before sending the next.
+     */
+    class Outbox implements Runnable {
+        final Address subscriber;
+        final LinkedList<List<Notification>> batches = new LinkedList<List<Notification>>();
+        boolean draining = false;
+
+        Outbox(Address subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Returns true if the caller has to start draining.
+         */
+        synchronized boolean offer(List<Notification> batch) {
+            batches.add(batch);
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        synchronized List<Notification> poll() {
+            List<Notification> batch = batches.poll();
+            if (batch == null) {
+                draining = false;
+            }
+            return batch;
+        }
+
+        public void run() {
+            List<Notification> batch;
+            while ((batch = poll()) != null) {
+                Member member = null;
+                for (Member m : factory.getCluster().getMembers()) {
+                    if (((MemberImpl) m).getAddress().equals(subscriber)) {
+                        member = m;
+                    }
+                }
+                if (member == null) {
+                    continue;
+                }
+                DistributedTask<Boolean> deliver =
+                        new DistributedTask<Boolean>(new DeliverTask(factory.getName(), batch), member);
+                try {
+                    factory.getExecutorService().execute(deliver);
+                    deliver.get();
+                } catch (Exception e) {
+                    logger.log(Level.FINEST, "Notifying " + subscriber, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands a batch to the listeners of this member, in the order the owner matched them.
+     */
+    void deliver(List<Notification> batch) {
+        long now = System.currentTimeMillis();
+        for (Notification notification : batch) {
+            Subscription subscription = own.get(notification.subscriptionId);
+            if (subscription != null && subscription.expiry < now) {
+                removeListener(notification.subscriptionId);
+            }
+            SpaceEventListener listener = listeners.get(notification.subscriptionId);
+            if (listener != null) {
+                try {
+                    listener.notify(new SpaceEvent(notification.entryId, notification.type));
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Space listener failed", e);
+                }
+            }
+        }
+    }
+
+    private static SpaceEventType toSpaceEventType(int eventType) {
+        switch (eventType) {
+            case EntryEvent.TYPE_REMOVED:
+                return SpaceEventType.TAKEN;
+            case EntryEvent.TYPE_UPDATED:
+                return SpaceEventType.RENEWED;
+            case EntryEvent.TYPE_EVICTED:
+                return SpaceEventType.EXPIRED;
+            default:
+                return SpaceEventType.ADDED;
+        }
+    }
+
+    static class Subscription implements Serializable {
+        final long id;
+        final String className;
+        final Object criteria;
+        transient Address subscriber;
+        final long expiry;
+
+        Subscription(long id, String className, Object criteria, Address subscriber, long expiry) {
+            this.id = id;
+            this.className = className;
+            this.criteria = criteria;
+            this.subscriber = subscriber;
+            this.expiry = expiry;
+        }
+
+        Subscription renew(long expiry) {
+            return new Subscription(id, className, criteria, subscriber, expiry);
+        }
+
+        // Address is only DataSerializable
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+            out.writeObject(subscriber.getIP());
+            out.writeInt(subscriber.getPort());
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            subscriber = new Address((byte[]) in.readObject(), in.readInt());
+        }
+    }
+
+    static class Notification implements Serializable {
+        final long subscriptionId;
+        final long entryId;
+        final SpaceEventType type;
+
+        Notification(long subscriptionId, long entryId, SpaceEventType type) {
+            this.subscriptionId = subscriptionId;
+            this.entryId = entryId;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Carries a batch of events to the subscribing member.
+     */
+    public static class DeliverTask extends TupleSpaceImpl.SpaceTask implements Callable<Boolean> {
+        List<Notification> batch;
+
+        public DeliverTask() {
+        }
+
+        public DeliverTask(String factoryName, List<Notification> batch) {
+            this.factoryName = factoryName;
+            this.batch = batch;
+        }
+
+        public Boolean call() {
+            ((TupleSpaceImpl) getFactory().getTupleSpace()).getSubscriptions().deliver(batch);
+            return Boolean.TRUE;
+        }
+    }
+
+    /**
+     * Adds, renews or with a null subscription cancels a subscription on the member it runs on.
+     */
+    public static class SubscribeTask extends TupleSpaceImpl.SpaceTask implements Callable<Boolean> {
+        long id;
+        Subscription subscription;
+
+        public SubscribeTask() {
+        }
+
+        public SubscribeTask(String factoryName, long id, Subscription subscription) {
+            this.factoryName = factoryName;
+            this.id = id;
+            this.subscription = subscription;
+        }
+
+        public Boolean call() {
+            TupleSpaceImpl space = (TupleSpaceImpl) getFactory().getTupleSpace();
+            // a member still starting fetches the subscription once its space is up
+            if (space != null) {
+                space.getSubscriptions().update(id, subscription);
+            }
+            return Boolean.TRUE;
+        }
+    }
+
+    /**
+     * Returns the subscriptions made on the member it runs on.
+     */
+    public static class FetchTask extends TupleSpaceImpl.SpaceTask implements Callable<List<Subscription>> {
+
+        public FetchTask() {
+        }
+
+        public FetchTask(String factoryName) {
+            this.factoryName = factoryName;
+        }
+
+        public List<Subscription> call() {
+            TupleSpaceImpl space = (TupleSpaceImpl) getFactory().getTupleSpace();
+            if (space == null) {
+                return new ArrayList<Subscription>();
+            }
+            return new ArrayList<Subscription>(space.getSubscriptions().own.values());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.hazelcast.space;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Member-local registry of the threads blocked in read or take. Waiters are
+ * grouped per class by template signature or criteria. A single listener per class matches
+ * each added entry against the waiting templates. It hands the entry to every
+ * matching reader and to the longest-waiting matching taker.
+ */
+public class SpaceWaiters {
+
+    private final TupleSpaceImpl space;
+    private final ConcurrentMap<String, ClassWaiters> classes = new ConcurrentHashMap<String, ClassWaiters>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SpaceWaiters(TupleSpaceImpl space) {
+        this.space = space;
+    }
+
+    /**
+     * @param criteria template elements or a Criteria
+     */
+    public Waiter register(String className, Object criteria, boolean take) {
+        ClassWaiters waiters = classes.get(className);
+        if (waiters == null) {
+            waiters = new ClassWaiters();
+            ClassWaiters existing = classes.putIfAbsent(className, waiters);
+            if (existing == null) {
+                space.getSpace(className).addEntryListener(waiters, true);
+            } else {
+                waiters = existing;
+            }
+        }
+        Waiter waiter = new Waiter(waiters, criteria, take, sequence.incrementAndGet());
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    public void deregister(Waiter waiter) {
+        waiter.owner.remove(waiter);
+    }
+
+    public static class Waiter {
+        final ClassWaiters owner;
+        final Object criteria;
+        final boolean take;
+        final long sequence;
+        private SpaceEntry offered;
+
+        Waiter(ClassWaiters owner, Object criteria, boolean take, long sequence) {
+            this.owner = owner;
+            this.criteria = criteria;
+            this.take = take;
+            this.sequence = sequence;
+        }
+
+        synchronized boolean isFree() {
+            return offered == null;
+        }
+
+        synchronized boolean offer(SpaceEntry entry) {
+            if (offered != null) {
+                return false;
+            }
+            offered = entry;
+            notifyAll();
+            return true;
+        }
+
+        /**
+         * Waits for a matching entry and makes the waiter free again.
+         *
+         * @return the offered entry or null if none arrived in time
+         */
+        public synchronized SpaceEntry await(long millis) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            while (offered == null) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return null;
+                }
+                wait(remaining);
+            }
+            SpaceEntry entry = offered;
+            offered = null;
+            return entry;
+        }
+
+        /**
+         * @return an entry offered after await gave up, or null
+         */
+        public synchronized SpaceEntry poll() {
+            SpaceEntry entry = offered;
+            offered = null;
+            return entry;
+        }
+    }
+
+    static class ClassWaiters implements EntryListener {
+        // template signature -> waiters in arrival order
+        private final Map<Object, LinkedList<Waiter>> groups = new HashMap<Object, LinkedList<Waiter>>();
+
+        synchronized void add(Waiter waiter) {
+            LinkedList<Waiter> group = groups.get(waiter.criteria);
+            if (group == null) {
+                group = new LinkedList<Waiter>();
+                groups.put(waiter.criteria, group);
+            }
+            group.addLast(waiter);
+        }
+
+        synchronized void remove(Waiter waiter) {
+            LinkedList<Waiter> group = groups.get(waiter.criteria);
+            if (group != null) {
+                group.remove(waiter);
+                if (group.isEmpty()) {
+                    groups.remove(waiter.criteria);
+                }
+            }
+        }
+
+        synchronized void dispatch(SpaceEntry entry) {
+            Waiter taker = null;
+            for (Map.Entry<Object, LinkedList<Waiter>> group : groups.entrySet()) {
+                if (!SpaceHelper.matches(group.getKey(), entry.getElements())) {
+                    continue;
+                }
+                for (Waiter waiter : group.getValue()) {
+                    if (!waiter.take) {
+                        waiter.offer(entry);
+                    } else if (waiter.isFree() && (taker == null || waiter.sequence < taker.sequence)) {
+                        taker = waiter;
+                    }
+                }
+            }
+            if (taker != null) {
+                taker.offer(entry);
+            }
+        }
+
+        public void entryAdded(EntryEvent event) {
+            SpaceEntry entry = (SpaceEntry) event.getValue();
+            if (entry != null) {
+                dispatch(entry);
+            }
+        }
+
+        public void entryRemoved(EntryEvent event) {
+        }
+
+        public void entryUpdated(EntryEvent event) {
+        }
+
+        public void entryEvicted(EntryEvent event) {
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.hazelcast.space;
 import com.hazelcast.space.event.SpaceEventListener;
 import com.hazelcast.space.lease.Lease;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Created by IntelliJ IDEA.
  * User: dharris
@@ -19,7 +22,55 @@ public interface TupleSpace {
 
     public <T> T takeIfExists(T template);
 
+    /**
+     * Reads an entry of the given type matching the criteria, blocking up to duration.
+     */
+    public <T> T read(Class<T> type, Criteria criteria, long duration);
+
+    public <T> T readIfExists(Class<T> type, Criteria criteria);
+
+    /**
+     * Takes an entry of the given type matching the criteria, blocking up to duration.
+     */
+    public <T> T take(Class<T> type, Criteria criteria, long duration);
+
+    public <T> T takeIfExists(Class<T> type, Criteria criteria);
+
     public Lease write(Object o, long duration);
 
-    public void notify(Object template, SpaceEventListener listener, long duration);
+    /**
+     * Writes all the objects, sending one batch to each member owning some of them.
+     *
+     * @return the leases, in the iteration order of the objects
+     */
+    public List<Lease> writeAll(Collection objects, long duration);
+
+    /**
+     * Takes up to maxCount matching entries, blocking up to duration for the first one.
+     */
+    public <T> List<T> takeMultiple(T template, int maxCount, long duration);
+
+    /**
+     * Reads up to maxCount matching entries without blocking.
+     */
+    public <T> List<T> readMultiple(T template, int maxCount);
+
+    public <T> List<T> takeMultiple(Class<T> type, Criteria criteria, int maxCount, long duration);
+
+    public <T> List<T> readMultiple(Class<T> type, Criteria criteria, int maxCount);
+
+    /**
+     * Renews all the leases by duration, with one batch per class sent to each member.
+     */
+    public void renewAll(Collection<Lease> leases, long duration);
+
+    /**
+     * Subscribes the listener to the events of the entries matching the template.
+     * The owners of the entries filter the events, which arrive in batches.
+     *
+     * @return the lease of the subscription, to renew or cancel it
+     */
+    public Lease notify(Object template, SpaceEventListener listener, long duration);
+
+    public Lease notify(Class type, Criteria criteria, SpaceEventListener listener, long duration);
 }
@@ -1,16 +1,30 @@
 package com.hazelcast.space;
 
+import com.hazelcast.core.DistributedTask;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.IdGenerator;
+import com.hazelcast.core.Member;
+import com.hazelcast.core.MultiTask;
+import com.hazelcast.cluster.NodeAware;
+import com.hazelcast.impl.ConcurrentMapManager;
 import com.hazelcast.impl.FactoryImpl;
+import com.hazelcast.impl.MapIndex;
+import com.hazelcast.impl.MapIndexFactory;
+import com.hazelcast.impl.Node;
+import com.hazelcast.impl.RecordUpdater;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Data;
 import com.hazelcast.space.event.SpaceEventListener;
 import com.hazelcast.space.lease.Lease;
 import com.hazelcast.space.lease.SpaceEntryLease;
+import com.hazelcast.space.lease.SpaceEventListenerLease;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import static com.hazelcast.nio.BufferUtil.toData;
+import static com.hazelcast.nio.BufferUtil.toObject;
+
+import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -24,23 +38,49 @@ public class TupleSpaceImpl implements TupleSpace {
 //    private MultiMap<String, SpaceEntry> entries = Hazelcast.getMultiMap("_jspace");
 //    private IMap<String, Set<SpaceEntry>> entries = Hazelcast.getMap("_jspace");
 
+    static final String SPACE_PREFIX = "_space_";
+
+    // matches fetched per round when takers race for the same entries
+    private static final int TAKE_CANDIDATES = 8;
+
     private final FactoryImpl factory;
     private IdGenerator idGenerator;
+    private final ExpiredEntryReaper reaper;
+    private final SpaceWaiters waiters = new SpaceWaiters(this);
+    private final SpaceSubscriptions subscriptions;
 
     private final Logger logger = Logger.getLogger(TupleSpaceImpl.class.getName());
 
     public TupleSpaceImpl(FactoryImpl factory) {
         this.factory = factory;
         this.idGenerator = factory.getIdGenerator("_space_ids");
+        this.reaper = new ExpiredEntryReaper(factory.node);
+        factory.node.concurrentMapManager.registerMapIndexFactory("c:" + SPACE_PREFIX, new MapIndexFactory() {
+            public MapIndex createIndex(String name) {
+                SpaceIndex index = new SpaceIndex();
+                reaper.addIndex(name, index);
+                return index;
+            }
+        });
+        factory.node.clusterService.registerPeriodicRunnable(reaper);
+        this.subscriptions = new SpaceSubscriptions(factory);
+        factory.node.concurrentMapManager.registerOwnerEntryListener("c:" + SPACE_PREFIX, subscriptions);
+        factory.node.clusterService.registerPeriodicRunnable(subscriptions);
+        factory.getCluster().addMembershipListener(subscriptions);
+        subscriptions.fetch();
+    }
+
+    SpaceSubscriptions getSubscriptions() {
+        return subscriptions;
     }
 
     /**
      * Our TupleSpace is really just a Set, one per class/template.
      */
 //    private ISet<SpaceEntry> getSpace(String className) {
-    private IMap getSpace(String className) {
+    IMap getSpace(String className) {
 //        return factory.getSet("_space_"+className);
-        return factory.getMap("_space_" + className);
+        return factory.getMap(SPACE_PREFIX + className);
     }
 
     /*
@@ -69,175 +109,636 @@ public class TupleSpaceImpl implements TupleSpace {
         return found;
     }
 
-    public SpaceEntry updateLease(String className, long id, long expiry) {
-        SpaceEntry found = null;
-        ConcurrentMap<Long, SpaceEntry> c = getSpace(className);
-        found = c.get(id);
-        if (found != null) {
-            logger.log(Level.INFO, "1 Found SpaceEntry: " + found);
-            found.setExpiration(expiry);
-            c.replace(found.getId(), found);
+    /**
+     * Sets the expiry of the given entries. The keys are grouped by owning
+     * member and each group is renewed by one task on its owner, which
+     * applies the batch in one step, see renewEntries.
+     *
+     * @return the number of entries whose lease was found
+     */
+    public int updateLeases(String className, Object[] keys, long[] expiries) {
+        // owner -> indexes of its keys
+        Map<Address, List<Integer>> owners = new HashMap<Address, List<Integer>>();
+        for (int i = 0; i < keys.length; i++) {
+            Address owner = factory.node.concurrentMapManager.getKeyOwner(toData(keys[i]));
+            List<Integer> batch = owners.get(owner);
+            if (batch == null) {
+                batch = new ArrayList<Integer>();
+                owners.put(owner, batch);
+            }
+            batch.add(i);
         }
-        found = c.get(id);
-        if (found != null) {
-            logger.log(Level.INFO, "2 Found SpaceEntry: " + found);
+        List<DistributedTask<Integer>> tasks = new ArrayList<DistributedTask<Integer>>();
+        for (List<Integer> batch : owners.values()) {
+            Object[] batchKeys = new Object[batch.size()];
+            long[] batchExpiries = new long[batch.size()];
+            for (int i = 0; i < batchKeys.length; i++) {
+                batchKeys[i] = keys[batch.get(i)];
+                batchExpiries[i] = expiries[batch.get(i)];
+            }
+            LeaseTask lease = new LeaseTask(factory.getName(), className, batchKeys, batchExpiries);
+            // routed to the owner of the first key, which owns them all
+            DistributedTask<Integer> task = new DistributedTask<Integer>(lease, batchKeys[0]);
+            factory.getExecutorService().execute(task);
+            tasks.add(task);
         }
-        return found;
+        int updated = 0;
+        for (DistributedTask<Integer> task : tasks) {
+            try {
+                updated += task.get();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+        logger.log(Level.FINE, "Updated " + updated + " of " + keys.length + " " + className + " leases");
+        return updated;
     }
 
-    public <T> T read(T template, long duration) {
-        return readOrTake(template, duration, false);
-    }
-
-    private SpaceEntry readOrTakeImmediate(Object template, boolean remove) {
-        String className = template.getClass().getName();
-        Collection<SpaceEntry> c = getSpace(className).values();
-        logger.log(Level.INFO, "Size of space for " + className + ": " + c.size());
-        SpaceEntry found = null;
-        List<SpaceEntry> expired = new ArrayList<SpaceEntry>();
-        if (c != null && !c.isEmpty()) {
-            Map templateElements = extractElements(template);
-            for (SpaceEntry e : c) {
-                if (hasExpired(e)) {
-                    expired.add(e);
-                } else {
-                    if (elementsMatch(templateElements, e.getElements())) {
-                        found = e;
-                        if (remove) {
-                            logger.log(Level.INFO, "Removing " + className + " entry with id " + found.getId());
-                            getSpace(className).remove(found.getId());
-                        }
-                        break;
+    public void renewAll(Collection<Lease> leases, long duration) {
+        // class name -> leases
+        Map<String, List<SpaceEntryLease>> byClass = new HashMap<String, List<SpaceEntryLease>>();
+        for (Lease lease : leases) {
+            SpaceEntryLease entryLease = (SpaceEntryLease) lease;
+            List<SpaceEntryLease> list = byClass.get(entryLease.getClassName());
+            if (list == null) {
+                list = new ArrayList<SpaceEntryLease>();
+                byClass.put(entryLease.getClassName(), list);
+            }
+            list.add(entryLease);
+        }
+        for (Map.Entry<String, List<SpaceEntryLease>> entry : byClass.entrySet()) {
+            List<SpaceEntryLease> list = entry.getValue();
+            Object[] keys = new Object[list.size()];
+            long[] expiries = new long[list.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = list.get(i).getSpaceEntryKey();
+                expiries[i] = list.get(i).extend(duration);
+            }
+            updateLeases(entry.getKey(), keys, expiries);
+        }
+    }
+
+    /**
+     * Writes the new expiries into the records of the entries in one step on
+     * the service thread of the owner, where the space index takes them into
+     * its lease table and the backups get the new values. No lock is taken;
+     * the step runs between the other updates of the entries, so a renewal
+     * never brings back a taken one. Entries that moved or are locked
+     * meanwhile are renewed one by one under their lock.
+     */
+    int renewEntries(String className, Object[] keys, long[] expiries) {
+        final Map<Data, Long> leases = new HashMap<Data, Long>(keys.length);
+        List<Data> dataKeys = new ArrayList<Data>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            Data key = toData(keys[i]);
+            leases.put(key, expiries[i]);
+            dataKeys.add(key);
+        }
+        List<Data> renewed = factory.node.concurrentMapManager.updateLocal("c:" + SPACE_PREFIX + className,
+                dataKeys, new RecordUpdater() {
+                    public Data update(Data key, Data value) {
+                        SpaceEntry entry = (SpaceEntry) toObject(value, false);
+                        entry.setExpiration(leases.get(key));
+                        return toData(entry);
                     }
+                });
+        int updated = renewed.size();
+        if (updated < keys.length) {
+            Set<Data> done = new HashSet<Data>(renewed);
+            IMap space = getSpace(className);
+            for (int i = 0; i < keys.length; i++) {
+                if (!done.contains(dataKeys.get(i))) {
+                    updated += renewEntry(space, keys[i], expiries[i]);
                 }
             }
         }
+        return updated;
+    }
 
-        // TODO: expire objects in a separate thread
-        if (expired.size() > 0) {
-            logger.log(Level.INFO, expired.size() + " elements have expired and need to be purged");
+    private int renewEntry(IMap space, Object key, long expiry) {
+        space.lock(key);
+        try {
+            SpaceEntry entry = (SpaceEntry) space.get(key);
+            if (entry == null) {
+                return 0;
+            }
+            entry.setExpiration(expiry);
+            space.put(key, entry);
+            return 1;
+        } finally {
+            space.unlock(key);
         }
-        return found;
     }
 
-    private boolean hasExpired(SpaceEntry se) {
-        logger.log(Level.FINE, "SpaceEntry " + se.getId() + " Expiry: " + new Date(se.getExpiration()));
-        return se.getExpiration() < System.currentTimeMillis();
+    public <T> T read(T template, long duration) {
+        return (T) readOrTake(template.getClass(), SpaceHelper.extractElements(template), duration, false);
+    }
+
+    public <T> T read(Class<T> type, Criteria criteria, long duration) {
+        return (T) readOrTake(type, criteria, duration, false);
+    }
+
+    /**
+     * Ships the template elements or criteria to the members owning the space and lets
+     * each of them evaluate it against its own entries, so only the first
+     * matches travel back instead of the whole space.
+     * <p/>
+     * A take claims an entry by removing it on its owner; the remove returns
+     * the entry to exactly one of the racing takers, the others move on to
+     * the next candidate and query again once the candidates run out.
+     */
+    private SpaceEntry readOrTakeImmediate(Class type, Object criteria, boolean remove) {
+        IMap space = getSpace(type.getName());
+        if (!remove) {
+            for (Map.Entry match : query(type, criteria, 1)) {
+                return (SpaceEntry) match.getValue();
+            }
+            return null;
+        }
+        while (true) {
+            Set<Map.Entry> matches = query(type, criteria, TAKE_CANDIDATES);
+            if (matches.isEmpty()) {
+                return null;
+            }
+            for (Map.Entry match : matches) {
+                SpaceEntry taken = claim(space, (SpaceEntry) match.getValue());
+                if (taken != null) {
+                    return taken;
+                }
+            }
+        }
+    }
+
+    /**
+     * Asks only the owner of the routing value when the criteria fix it.
+     */
+    private Set<Map.Entry> query(Class type, Object criteria, int limit) {
+        String mapName = "c:" + SPACE_PREFIX + type.getName();
+        ConcurrentMapManager concurrentMapManager = factory.node.concurrentMapManager;
+        SpaceKey routingKey = routingKey(type, criteria);
+        if (routingKey == null) {
+            return concurrentMapManager.query(mapName, criteria, limit);
+        }
+        return concurrentMapManager.queryOwner(mapName, criteria, limit, toData(routingKey));
+    }
+
+    /**
+     * @return a key placed like the entries the criteria can match, or null
+     *         if the type has no routing element or the criteria leave it open
+     */
+    private SpaceKey routingKey(Class type, Object criteria) {
+        String routingElement = SpaceHelper.getRoutingElement(type);
+        if (routingElement == null) {
+            return null;
+        }
+        Object value = (criteria instanceof Criteria)
+                ? ((Criteria) criteria).getEqualValue(routingElement)
+                : ((Map) criteria).get(routingElement);
+        return (value == null) ? null : new SpaceKey(0, routingHash(value));
+    }
+
+    /**
+     * Hashes the serialized form of the routing value, which is the same on
+     * every member; hashCode is not for enums or identity-hashed objects.
+     * Numbers are hashed normalized so 5 and 5L are placed alike.
+     */
+    private static int routingHash(Object value) {
+        return toData(Criteria.normalize(value)).getPartitionHash();
+    }
+
+    private SpaceEntry newEntry(Object o, long duration) {
+        Map elements = SpaceHelper.extractElements(o);
+        SpaceEntry se = new SpaceEntry(idGenerator.newId(), o, elements, duration);
+        String routingElement = SpaceHelper.getRoutingElement(o.getClass());
+        if (routingElement != null && elements.get(routingElement) != null) {
+            se.setRoutingHash(routingHash(elements.get(routingElement)));
+        }
+        return se;
+    }
+
+    /**
+     * @return the removed entry, or null if another taker got it first
+     */
+    private SpaceEntry claim(IMap space, SpaceEntry entry) {
+        SpaceEntry taken = (SpaceEntry) space.remove(entry.getKey());
+        if (taken != null) {
+            logger.log(Level.FINE, "Took " + space.getName() + " entry with id " + taken.getId());
+        }
+        return taken;
     }
 
-    private <T> T readOrTake(T template, long duration, boolean take) {
-        T found = null;
-        SpaceEntry entry = readOrTakeImmediate(template, take);
-        String className = template.getClass().getName();
+    /**
+     * Blocks through the member-local waiter registry. The waiter is
+     * registered before looking again so no write can slip in between.
+     * An entry added while a taker still holds an offer is offered to
+     * nobody, so the space is queried again whenever an offered entry is
+     * lost to another taker, and an offer that lands as the wait times out
+     * is still used.
+     */
+    private Object readOrTake(Class type, Object criteria, long duration, boolean take) {
+        SpaceEntry entry = readOrTakeEntry(type, criteria, duration, take);
+        if (entry == null) {
+            return null;
+        }
+        return (take) ? toObjects(type, Collections.singletonList(entry)).get(0) : entry.getEntry();
+    }
+
+    private SpaceEntry readOrTakeEntry(Class type, Object criteria, long duration, boolean take) {
+        SpaceEntry entry = readOrTakeImmediate(type, criteria, take);
         if (entry == null && duration > 0) {
-            BlockingSpaceEventListener<SpaceEntry> l = new BlockingSpaceEventListener<SpaceEntry>(this, template, duration);
-            getSpace(className).addEntryListener(l, false);
-            // wait until duration...
-            l.block();
-            if (l.isNotified()) {
-                entry = l.getEntry();
+            long deadline = System.currentTimeMillis() + duration;
+            if (deadline < 0) {
+                deadline = Long.MAX_VALUE;
+            }
+            SpaceWaiters.Waiter waiter = waiters.register(type.getName(), criteria, take);
+            try {
+                entry = readOrTakeImmediate(type, criteria, take);
+                while (entry == null) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    SpaceEntry offered = (remaining > 0) ? waiter.await(remaining) : null;
+                    if (offered == null) {
+                        break;
+                    }
+                    entry = accept(type, criteria, offered, take);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiters.deregister(waiter);
             }
-            if (take && entry != null) {
-                logger.log(Level.INFO, "Removing " + className + " entry with id " + entry.getId());
-                getSpace(className).remove(entry);
+            if (entry == null) {
+                SpaceEntry offered = waiter.poll();
+                if (offered != null) {
+                    entry = accept(type, criteria, offered, take);
+                }
             }
         }
-        if (entry != null) {
-            found = (T) entry.getEntry();
+        return entry;
+    }
+
+    /**
+     * Deserializes taken entries. They are already removed from the space,
+     * so if any of them fails they are all written back before the failure
+     * reaches the caller.
+     */
+    private <T> List<T> toObjects(Class type, List<SpaceEntry> entries) {
+        List<T> objects = new ArrayList<T>(entries.size());
+        try {
+            for (SpaceEntry entry : entries) {
+                objects.add((T) entry.getEntry());
+            }
+        } catch (RuntimeException e) {
+            restore(type, entries);
+            throw e;
+        }
+        return objects;
+    }
+
+    private void restore(Class type, List<SpaceEntry> entries) {
+        logger.log(Level.WARNING, "Writing back " + entries.size() + " taken " + type.getName() + " entries");
+        IMap space = getSpace(type.getName());
+        for (SpaceEntry entry : entries) {
+            space.put(entry.getKey(), entry);
         }
-        return found;
+    }
+
+    private SpaceEntry accept(Class type, Object criteria, SpaceEntry offered, boolean take) {
+        if (!take) {
+            return offered;
+        }
+        SpaceEntry entry = claim(getSpace(type.getName()), offered);
+        return (entry != null) ? entry : readOrTakeImmediate(type, criteria, true);
     }
 
     public <T> T readIfExists(T template) {
         return read(template, 0);
     }
 
+    public <T> T readIfExists(Class<T> type, Criteria criteria) {
+        return read(type, criteria, 0);
+    }
+
     public <T> T take(T template, long duration) {
-        return readOrTake(template, duration, true);
+        return (T) readOrTake(template.getClass(), SpaceHelper.extractElements(template), duration, true);
+    }
+
+    public <T> T take(Class<T> type, Criteria criteria, long duration) {
+        return (T) readOrTake(type, criteria, duration, true);
     }
 
     public <T> T takeIfExists(T template) {
         return take(template, 0);
     }
 
+    public <T> T takeIfExists(Class<T> type, Criteria criteria) {
+        return take(type, criteria, 0);
+    }
+
     public Lease write(Object o, long duration) {
         if (o == null) {
             return null;
         }
         String className = o.getClass().getName();
         // TODO: problem here with the idgenerator blocking subsequent vm's?
-        long id = idGenerator.newId();
-        SpaceEntry se = new SpaceEntry(id, o, extractElements(o), duration);
+        SpaceEntry se = newEntry(o, duration);
 //        getSpace(className).add(se);
-        getSpace(className).put(id, se);
+        getSpace(className).put(se.getKey(), se);
         // TODO: do we need to keep track of leases?
-        Lease lease = new SpaceEntryLease(this, className, id, duration);
-        logger.log(Level.INFO, "Added " + className + " entry with id " + id);
+        Lease lease = new SpaceEntryLease(this, className, se.getId(), se.getKey(), duration);
+        logger.log(Level.INFO, "Added " + className + " entry with id " + se.getId());
         return lease;
     }
 
-    // TODO: cancel listeners after duration expires
-    public void notify(Object template, SpaceEventListener listener, long duration) {
-        SpaceEventListenerAdaptor l = new SpaceEventListenerAdaptor(this, template, duration, listener);
-//        Lease l = new SpaceEventListenerLease(this, );
-//        getSpace(template.getClass().getName()).addItemListener(l, true);
-        getSpace(template.getClass().getName()).addEntryListener(l, false);
+    /**
+     * Groups the new entries by owning member and writes each group with
+     * a single task executed on its owner.
+     */
+    public List<Lease> writeAll(Collection objects, long duration) {
+        List<Lease> leases = new ArrayList<Lease>(objects.size());
+        // class name -> owner -> entries
+        Map<String, Map<Address, List<SpaceEntry>>> batches = new HashMap<String, Map<Address, List<SpaceEntry>>>();
+        for (Object o : objects) {
+            if (o == null) {
+                leases.add(null);
+                continue;
+            }
+            String className = o.getClass().getName();
+            SpaceEntry se = newEntry(o, duration);
+            Map<Address, List<SpaceEntry>> owners = batches.get(className);
+            if (owners == null) {
+                owners = new HashMap<Address, List<SpaceEntry>>();
+                batches.put(className, owners);
+            }
+            Address owner = factory.node.concurrentMapManager.getKeyOwner(toData(se.getKey()));
+            List<SpaceEntry> batch = owners.get(owner);
+            if (batch == null) {
+                batch = new ArrayList<SpaceEntry>();
+                owners.put(owner, batch);
+            }
+            batch.add(se);
+            leases.add(new SpaceEntryLease(this, className, se.getId(), se.getKey(), duration));
+        }
+        List<DistributedTask<Integer>> tasks = new ArrayList<DistributedTask<Integer>>();
+        for (Map.Entry<String, Map<Address, List<SpaceEntry>>> owners : batches.entrySet()) {
+            for (List<SpaceEntry> batch : owners.getValue().values()) {
+                WriteTask write = new WriteTask(factory.getName(), owners.getKey(), batch);
+                // routed to the owner of the first entry, which owns them all
+                DistributedTask<Integer> task = new DistributedTask<Integer>(write, batch.get(0).getKey());
+                factory.getExecutorService().execute(task);
+                tasks.add(task);
+            }
+        }
+        for (DistributedTask<Integer> task : tasks) {
+            try {
+                task.get();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+        logger.log(Level.FINE, "Added " + leases.size() + " entries in " + tasks.size() + " batches");
+        return leases;
+    }
+
+    /**
+     * Visits the members one at a time, this one first, and takes whatever
+     * they own of the remaining count with a single task each.
+     */
+    public <T> List<T> takeMultiple(T template, int maxCount, long duration) {
+        return takeMatches(template.getClass(), SpaceHelper.extractElements(template), maxCount, duration);
     }
 
-    private Map extractElements(Object o) {
-        Map<String, String> m = extractMethods(o);
-        m.putAll(extractFields(o));
-        return m;
+    public <T> List<T> takeMultiple(Class<T> type, Criteria criteria, int maxCount, long duration) {
+        return takeMatches(type, criteria, maxCount, duration);
     }
 
-    private boolean elementsMatch(Map templateElements, Map entryElements) {
-        Set templateSet = templateElements.entrySet();
-        Set<Map.Entry> entrySet = entryElements.entrySet();
-        return entrySet.containsAll(templateSet);
+    private <T> List<T> takeMatches(Class type, Object criteria, int maxCount, long duration) {
+        List<SpaceEntry> taken = new ArrayList<SpaceEntry>();
+        takeMultipleImmediate(type, criteria, maxCount, taken);
+        if (taken.isEmpty() && duration > 0) {
+            SpaceEntry first = readOrTakeEntry(type, criteria, duration, true);
+            if (first != null) {
+                taken.add(first);
+                takeMultipleImmediate(type, criteria, maxCount, taken);
+            }
+        }
+        return toObjects(type, taken);
+    }
+
+    private void takeMultipleImmediate(Class type, Object criteria, int maxCount, List<SpaceEntry> taken) {
+        String className = type.getName();
+        SpaceKey routingKey = routingKey(type, criteria);
+        if (routingKey != null) {
+            // all the matches live with the owner of the routing value
+            TakeTask take = new TakeTask(factory.getName(), className, criteria, maxCount - taken.size());
+            addTaken(type, new DistributedTask<ArrayList<SpaceEntry>>(take, routingKey), taken);
+            return;
+        }
+        List<Member> members = new ArrayList<Member>(factory.getCluster().getMembers());
+        Collections.sort(members, new Comparator<Member>() {
+            public int compare(Member m1, Member m2) {
+                return (m1.localMember() ? 0 : 1) - (m2.localMember() ? 0 : 1);
+            }
+        });
+        for (Member member : members) {
+            if (taken.size() >= maxCount) {
+                return;
+            }
+            TakeTask take = new TakeTask(factory.getName(), className, criteria, maxCount - taken.size());
+            addTaken(type, new DistributedTask<ArrayList<SpaceEntry>>(take, member), taken);
+        }
     }
 
     /**
-     * Extract public getXxx'ers
+     * A failed task may have removed entries it could not return, so the
+     * failure is not swallowed; the entries taken so far are written back.
      */
-    private Map<String, String> extractMethods(Object o) {
-        Method[] methods = o.getClass().getMethods();
-        Map<String, String> map = new HashMap<String, String>();
-        for (Method m : methods) {
-            String name = m.getName();
-            if (name.startsWith("get") && m.getTypeParameters().length == 0) {
-                try {
-                    Object v = m.invoke(o, null);
-                    if (v != null) {
-                        // TODO: remove "class" from getClass output
-                        map.put(name, String.valueOf(v));
-                    }
-                } catch (IllegalAccessException e) {
-                    // TODO
-                } catch (InvocationTargetException e) {
-                    // TODO
-                }
+    private void addTaken(Class type, DistributedTask<ArrayList<SpaceEntry>> task, List<SpaceEntry> taken) {
+        factory.getExecutorService().execute(task);
+        try {
+            taken.addAll(task.get());
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Taking " + type.getName() + " entries failed, the entries the task"
+                    + " removed may be lost", e);
+            if (!taken.isEmpty()) {
+                restore(type, taken);
             }
+            throw new RuntimeException(e);
         }
-        return map;
     }
 
     /**
-     * Extract public fields from the object.
+     * Each member evaluates the template and returns at most maxCount of its
+     * entries, in one packet per member.
      */
-    private Map<String, String> extractFields(Object o) {
-        Field[] fields = o.getClass().getFields();
-        Map<String, String> m = new HashMap<String, String>();
-        for (Field f : fields) {
-            try {
-                String name = f.getName();
-                Object value = f.get(o);
-                if (value != null) {
-                    m.put(name, String.valueOf(value));
+    public <T> List<T> readMultiple(T template, int maxCount) {
+        return readMatches(template.getClass(), SpaceHelper.extractElements(template), maxCount);
+    }
+
+    public <T> List<T> readMultiple(Class<T> type, Criteria criteria, int maxCount) {
+        return readMatches(type, criteria, maxCount);
+    }
+
+    private <T> List<T> readMatches(Class type, Object criteria, int maxCount) {
+        Set<Map.Entry> matches = query(type, criteria, maxCount);
+        List<T> found = new ArrayList<T>(matches.size());
+        for (Map.Entry match : matches) {
+            if (found.size() >= maxCount) {
+                break;
+            }
+            found.add((T) ((SpaceEntry) match.getValue()).getEntry());
+        }
+        return found;
+    }
+
+    public Lease notify(Object template, SpaceEventListener listener, long duration) {
+        return subscribe(template.getClass().getName(), SpaceHelper.extractElements(template), listener, duration);
+    }
+
+    public Lease notify(Class type, Criteria criteria, SpaceEventListener listener, long duration) {
+        return subscribe(type.getName(), criteria, listener, duration);
+    }
+
+    private Lease subscribe(String className, Object criteria, SpaceEventListener listener, long duration) {
+        long id = idGenerator.newId();
+        long expiry = System.currentTimeMillis() + duration;
+        if (expiry < 0) {
+            expiry = Long.MAX_VALUE;
+        }
+        SpaceSubscriptions.Subscription subscription = new SpaceSubscriptions.Subscription(id, className, criteria,
+                factory.node.getThisAddress(), expiry);
+        subscriptions.addListener(subscription, listener);
+        broadcastSubscription(id, subscription);
+        return new SpaceEventListenerLease(this, id, expiry);
+    }
+
+    /**
+     * Sends the subscription with its new expiry to every member again,
+     * including those that joined since it was made.
+     */
+    public void renewSubscription(long id, long expiry) {
+        SpaceSubscriptions.Subscription subscription = subscriptions.getOwn(id);
+        if (subscription != null) {
+            subscription = subscription.renew(expiry);
+            subscriptions.setOwn(subscription);
+            broadcastSubscription(id, subscription);
+        }
+    }
+
+    public void cancelSubscription(long id) {
+        subscriptions.removeListener(id);
+        broadcastSubscription(id, null);
+    }
+
+    private void broadcastSubscription(long id, SpaceSubscriptions.Subscription subscription) {
+        SpaceSubscriptions.SubscribeTask subscribe = new SpaceSubscriptions.SubscribeTask(factory.getName(), id, subscription);
+        MultiTask<Boolean> task = new MultiTask<Boolean>(subscribe, factory.getCluster().getMembers());
+        factory.getExecutorService().execute(task);
+        try {
+            task.get();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Base of the tasks run on the members owning the entries. The executor
+     * hands remote tasks the node they run on; local ones go by factory name.
+     */
+    static abstract class SpaceTask implements NodeAware, Serializable {
+        String factoryName;
+        transient Node node;
+
+        public Node getNode() {
+            return node;
+        }
+
+        public void setNode(Node node) {
+            this.node = node;
+        }
+
+        FactoryImpl getFactory() {
+            return (node != null) ? node.factory : FactoryImpl.getFactory(factoryName);
+        }
+    }
+
+    /**
+     * Writes a batch of entries on the member owning them.
+     */
+    public static class WriteTask extends SpaceTask implements Callable<Integer> {
+        String className;
+        List<SpaceEntry> entries;
+
+        public WriteTask() {
+        }
+
+        public WriteTask(String factoryName, String className, List<SpaceEntry> entries) {
+            this.factoryName = factoryName;
+            this.className = className;
+            this.entries = entries;
+        }
+
+        public Integer call() {
+            IMap space = getFactory().getMap(SPACE_PREFIX + className);
+            for (SpaceEntry entry : entries) {
+                space.put(entry.getKey(), entry);
+            }
+            return entries.size();
+        }
+    }
+
+    /**
+     * Applies a batch of lease updates on the member owning the entries.
+     */
+    public static class LeaseTask extends SpaceTask implements Callable<Integer> {
+        String className;
+        Object[] keys;
+        long[] expiries;
+
+        public LeaseTask() {
+        }
+
+        public LeaseTask(String factoryName, String className, Object[] keys, long[] expiries) {
+            this.factoryName = factoryName;
+            this.className = className;
+            this.keys = keys;
+            this.expiries = expiries;
+        }
+
+        public Integer call() throws Exception {
+            return ((TupleSpaceImpl) getFactory().getTupleSpace()).renewEntries(className, keys, expiries);
+        }
+    }
+
+    /**
+     * Takes up to maxCount matching entries owned by the member it runs on.
+     */
+    public static class TakeTask extends SpaceTask implements Callable<ArrayList<SpaceEntry>> {
+        String className;
+        Object criteria;
+        int maxCount;
+
+        public TakeTask() {
+        }
+
+        public TakeTask(String factoryName, String className, Object criteria, int maxCount) {
+            this.factoryName = factoryName;
+            this.className = className;
+            this.criteria = criteria;
+            this.maxCount = maxCount;
+        }
+
+        public ArrayList<SpaceEntry> call() {
+            FactoryImpl factory = getFactory();
+            IMap space = factory.getMap(SPACE_PREFIX + className);
+            ArrayList<SpaceEntry> taken = new ArrayList<SpaceEntry>();
+            Set<Map.Entry> matches = factory.node.concurrentMapManager.queryLocal("c:" + space.getName(), criteria, maxCount);
+            for (Map.Entry match : matches) {
+                SpaceEntry entry = (SpaceEntry) space.remove(((SpaceEntry) match.getValue()).getKey());
+                if (entry != null) {
+                    taken.add(entry);
                 }
-            } catch (IllegalAccessException e) {
-                // TODO
             }
+            return taken;
         }
-        return m;
     }
 }
@@ -14,13 +14,19 @@ public class SpaceEntryLease implements Lease {
 
     private String className;
     private long spaceEntryId;
+    private Object spaceEntryKey;
     private long expiry;
     private TupleSpaceImpl space;
 
     public SpaceEntryLease(TupleSpaceImpl space, String className, long spaceEntryId, long timeToLive) {
+        this(space, className, spaceEntryId, spaceEntryId, timeToLive);
+    }
+
+    public SpaceEntryLease(TupleSpaceImpl space, String className, long spaceEntryId, Object spaceEntryKey, long timeToLive) {
         this.space = space;
         this.className = className;
         this.spaceEntryId = spaceEntryId;
+        this.spaceEntryKey = spaceEntryKey;
         this.expiry = System.currentTimeMillis() + timeToLive;
         if (this.expiry < 0) {
             this.expiry = Long.MAX_VALUE;
@@ -34,12 +40,38 @@ public class SpaceEntryLease implements Lease {
 
     public void cancel() {
         logger.log(Level.INFO, "Cancelling lease for " + spaceEntryId);
-        space.updateLease(className, spaceEntryId, 0);
+        this.expiry = 0;
+        space.updateLeases(className, new Object[]{spaceEntryKey}, new long[]{expiry});
     }
 
     public void renew(long delta) {
-        this.expiry += delta;
+        extend(delta);
         logger.log(Level.INFO, "Renewing lease for " + spaceEntryId + " by " + delta + "ms to " + new Date(this.expiry));
-        space.updateLease(className, spaceEntryId, expiry);
+        space.updateLeases(className, new Object[]{spaceEntryKey}, new long[]{expiry});
+    }
+
+    /**
+     * Moves the local expiry by delta without telling the space, for batched renewals.
+     *
+     * @return the new expiry
+     */
+    public long extend(long delta) {
+        this.expiry += delta;
+        if (this.expiry < 0) {
+            this.expiry = Long.MAX_VALUE;
+        }
+        return expiry;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public long getSpaceEntryId() {
+        return spaceEntryId;
+    }
+
+    public Object getSpaceEntryKey() {
+        return spaceEntryKey;
     }
 }
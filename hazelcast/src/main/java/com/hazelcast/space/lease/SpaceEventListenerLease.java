@@ -1,16 +1,48 @@
 package com.hazelcast.space.lease;
 
+import com.hazelcast.space.TupleSpaceImpl;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
- * TODO
+ * Lease of a notify subscription. Renewing or cancelling it reaches every
+ * member, which stop matching events for the subscription once it expires.
  */
 public class SpaceEventListenerLease implements Lease {
+
+    private final Logger logger = Logger.getLogger(SpaceEventListenerLease.class.getName());
+
+    private final TupleSpaceImpl space;
+    private final long subscriptionId;
+    private long expiry;
+
+    public SpaceEventListenerLease(TupleSpaceImpl space, long subscriptionId, long expiry) {
+        this.space = space;
+        this.subscriptionId = subscriptionId;
+        this.expiry = expiry;
+    }
+
     public long getExpiration() {
-        return 0;
+        return expiry - System.currentTimeMillis();
     }
 
     public void cancel() {
+        logger.log(Level.FINE, "Cancelling subscription " + subscriptionId);
+        this.expiry = 0;
+        space.cancelSubscription(subscriptionId);
     }
 
     public void renew(long duration) {
+        this.expiry += duration;
+        if (this.expiry < 0) {
+            this.expiry = Long.MAX_VALUE;
+        }
+        logger.log(Level.FINE, "Renewing subscription " + subscriptionId + " by " + duration + "ms");
+        space.renewSubscription(subscriptionId, expiry);
+    }
+
+    public long getSubscriptionId() {
+        return subscriptionId;
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2007-2008, Hazel Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.hazelcast.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class MpscLinkedQueueTest {
+
+    @Test
+    public void testDrainInOfferOrder() {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<Integer>();
+        assertTrue(queue.isEmpty());
+        for (int i = 0; i < 10; i++) {
+            queue.offer(i);
+        }
+        assertEquals(10, queue.size());
+        List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(4, queue.drainTo(drained, 4));
+        assertEquals(Integer.valueOf(4), queue.poll());
+        assertEquals(5, queue.drainTo(drained, 64));
+        assertEquals(9, drained.size());
+        assertEquals(Integer.valueOf(9), drained.get(8));
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 60000)
+    public void testProducersWakeTheParkedConsumer() throws Exception {
+        final MpscLinkedQueue<long[]> queue = new MpscLinkedQueue<long[]>();
+        final int producers = 8;
+        final int count = 100000;
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            new Thread() {
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        queue.offer(new long[]{producer, i});
+                        if (i % 1000 == 0) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            }.start();
+        }
+        long[] next = new long[producers];
+        for (int received = 0; received < producers * count; received++) {
+            long[] value = queue.poll(10, TimeUnit.SECONDS);
+            assertEquals(next[(int) value[0]]++, value[1]);
+        }
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2007-2008, Hazel Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.hazelcast.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SortedHashMapTest {
+
+    @Test
+    public void testScanVisitsEachValueOnce() {
+        SortedHashMap<Integer, Integer> map = new SortedHashMap<Integer, Integer>(16, SortedHashMap.OrderingType.LRU);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        Set<Integer> seen = new HashSet<Integer>();
+        List<Integer> values = new ArrayList<Integer>();
+        int cursor = 0;
+        int next = 1000;
+        do {
+            values.clear();
+            cursor = map.scan(cursor, values, 50);
+            for (Integer value : values) {
+                assertTrue(seen.add(value));
+            }
+            // grows the table and reorders the entries between the pages
+            for (int i = 0; i < 200; i++) {
+                map.put(next, next++);
+            }
+            map.get(seen.size() % 1000);
+        } while (cursor != 0);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(seen.contains(i));
+        }
+    }
+
+    @Test
+    public void testScanOfEmptyMap() {
+        SortedHashMap<Integer, Integer> map = new SortedHashMap<Integer, Integer>();
+        List<Integer> values = new ArrayList<Integer>();
+        assertEquals(0, map.scan(0, values, 10));
+        assertTrue(values.isEmpty());
+    }
+}
@@ -1,11 +1,21 @@
 package com.hazelcast.core;
 
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.impl.FactoryImpl;
 import static junit.framework.Assert.*;
 import static org.junit.Assert.assertEquals;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class HazelcastTest {
     @Test
@@ -113,6 +123,367 @@ public class HazelcastTest {
         assertTrue(map.containsKey("hazel"));
     }
 
+    @Test
+    public void testOffHeapMap() {
+        MapConfig mapConfig = new MapConfig();
+        mapConfig.setName("testOffHeapMap");
+        mapConfig.setStorageType("OFFHEAP");
+        Config.get().getMapMapConfigs().put("testOffHeapMap", mapConfig);
+        IMap<String, String> map = Hazelcast.getMap("testOffHeapMap");
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            large.append(i);
+        }
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, "value" + i);
+        }
+        map.put("large", large.toString());
+        assertEquals(101, map.size());
+        assertEquals("value7", map.get("key7"));
+        assertEquals(large.toString(), map.get("large"));
+        assertTrue(map.containsValue("value42"));
+        assertEquals("value7", map.put("key7", "seven"));
+        assertEquals("seven", map.get("key7"));
+        assertEquals("value8", map.putIfAbsent("key8", "eight"));
+        assertEquals("value9", map.replace("key9", "nine"));
+        assertEquals("nine", map.get("key9"));
+        assertFalse(map.remove("key10", "other"));
+        assertEquals("value10", map.remove("key10"));
+        assertNull(map.get("key10"));
+        assertEquals(large.toString(), map.remove("large"));
+        int count = 0;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            assertNotNull(entry.getValue());
+            count++;
+        }
+        assertEquals(99, count);
+    }
+
+    @Test
+    public void testMapEvictsOverMaxSize() throws Exception {
+        MapConfig mapConfig = new MapConfig();
+        mapConfig.setName("testMapEvictsOverMaxSize");
+        mapConfig.setEvictionPolicy("LRU");
+        mapConfig.setMaxSize(100);
+        Config.get().getMapMapConfigs().put("testMapEvictsOverMaxSize", mapConfig);
+        IMap<Integer, Integer> map = Hazelcast.getMap("testMapEvictsOverMaxSize");
+        for (int i = 0; i < 3000; i++) {
+            map.put(i, i);
+        }
+        Thread.sleep(2000);
+        assertTrue(map.size() <= 100);
+        assertTrue(((FactoryImpl.MProxyImpl) map).getEvictedCount() >= 2900);
+        assertEquals(0, ((FactoryImpl.MProxyImpl) map).getEvictionBacklog());
+        assertEquals(Integer.valueOf(2999), map.get(2999));
+        MapConfig evictAllConfig = new MapConfig();
+        evictAllConfig.setName("testMapEvictsOverMaxSizeAll");
+        evictAllConfig.setEvictionPolicy("LRU");
+        evictAllConfig.setMaxSize(10);
+        evictAllConfig.setEvictionPercentage(100);
+        Config.get().getMapMapConfigs().put("testMapEvictsOverMaxSizeAll", evictAllConfig);
+        IMap<Integer, Integer> evictAll = Hazelcast.getMap("testMapEvictsOverMaxSizeAll");
+        for (int i = 0; i < 100; i++) {
+            evictAll.put(i, i);
+            // the put running over the max size never evicts its own entry
+            assertEquals(Integer.valueOf(i), evictAll.get(i));
+        }
+    }
+
+    @Test
+    public void testMapEvictsExpiredEntries() throws Exception {
+        MapConfig mapConfig = new MapConfig();
+        mapConfig.setName("testMapEvictsExpiredEntries");
+        mapConfig.setTimeToLiveSeconds(1);
+        Config.get().getMapMapConfigs().put("testMapEvictsExpiredEntries", mapConfig);
+        IMap<Integer, Integer> map = Hazelcast.getMap("testMapEvictsExpiredEntries");
+        for (int i = 0; i < 50; i++) {
+            map.put(i, i);
+        }
+        Thread.sleep(4000);
+        assertEquals(0, map.size());
+        assertEquals(50, ((FactoryImpl.MProxyImpl) map).getEvictedCount());
+        assertEquals(0, ((FactoryImpl.MProxyImpl) map).getEvictionLagMillis());
+    }
+
+    @Test
+    public void testMapNearCache() throws Exception {
+        MapConfig mapConfig = new MapConfig();
+        mapConfig.setName("testMapNearCache");
+        NearCacheConfig nearCacheConfig = new NearCacheConfig();
+        nearCacheConfig.setMaxSize(100);
+        mapConfig.setNearCacheConfig(nearCacheConfig);
+        Config.get().getMapMapConfigs().put("testMapNearCache", mapConfig);
+        IMap<Integer, String> map = Hazelcast.getMap("testMapNearCache");
+        FactoryImpl.MProxyImpl proxy = (FactoryImpl.MProxyImpl) map;
+        for (int i = 0; i < 50; i++) {
+            map.put(i, "value" + i);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals("value" + i, map.get(i));
+        }
+        assertEquals(50, proxy.getNearCacheMisses());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("value" + i, map.get(i));
+        }
+        assertEquals(50, proxy.getNearCacheHits());
+        map.put(7, "changed");
+        assertEquals("changed", map.get(7));
+        map.remove(8);
+        assertNull(map.get(8));
+        assertTrue(proxy.getNearCacheInvalidations() >= 2);
+        for (int i = 10; i < 50; i++) {
+            Future<String> future = map.putAsync(i, "async" + i);
+            map.get(i);
+            assertEquals("value" + i, future.get());
+            assertEquals("async" + i, map.get(i));
+        }
+        assertEquals("async10", map.get(10));
+        assertFalse(map.replace(10, "value10", "replaced"));
+        assertTrue(map.replace(10, "async10", "replaced"));
+        assertEquals("replaced", map.get(10));
+        for (int i = 100; i < 300; i++) {
+            map.put(i, "value" + i);
+            map.get(i);
+        }
+        assertTrue(proxy.getNearCacheSize() <= 100);
+    }
+
+    @Test
+    public void testMapReadBackupData() throws Exception {
+        MapConfig mapConfig = new MapConfig();
+        mapConfig.setName("testMapReadBackupData");
+        mapConfig.setBackupCount(1);
+        mapConfig.setReadBackupData("UNBOUNDED_LAG");
+        Config.get().getMapMapConfigs().put("testMapReadBackupData", mapConfig);
+        MapConfig lruConfig = new MapConfig();
+        lruConfig.setName("testMapReadBackupDataLRU");
+        lruConfig.setBackupCount(1);
+        lruConfig.setReadBackupData("UNBOUNDED_LAG");
+        lruConfig.setEvictionPolicy("LRU");
+        Config.get().getMapMapConfigs().put("testMapReadBackupDataLRU", lruConfig);
+        IMap<Integer, String> map = Hazelcast.getMap("testMapReadBackupData");
+        IMap<Integer, String> lruMap = Hazelcast.getMap("testMapReadBackupDataLRU");
+        FactoryImpl remote = FactoryImpl.getFactory("testMapReadBackupData");
+        try {
+            Thread.sleep(5000);
+            for (int i = 0; i < 100; i++) {
+                map.put(i, "value" + i);
+                lruMap.put(i, "value" + i);
+            }
+            IMap<Integer, String> remoteMap = remote.getMap("testMapReadBackupData");
+            IMap<Integer, String> remoteLruMap = remote.getMap("testMapReadBackupDataLRU");
+            for (int i = 0; i < 100; i++) {
+                assertEquals("value" + i, remoteMap.get(i));
+                assertEquals("value" + i, remoteLruMap.get(i));
+            }
+            // with two members the remote one holds the backup of every entry it does not own
+            assertTrue(((FactoryImpl.MProxyImpl) remoteMap).getBackupReadCount() > 0);
+            assertEquals(0, ((FactoryImpl.MProxyImpl) remoteLruMap).getBackupReadCount());
+            map.put(7, "changed");
+            assertEquals("changed", remoteMap.get(7));
+            map.remove(8);
+            assertNull(remoteMap.get(8));
+            assertFalse(remoteMap.containsKey(8));
+        } finally {
+            remote.shutdown();
+        }
+    }
+
+    @Test
+    public void testMapIteratesInPages() {
+        IMap<Integer, Integer> map = Hazelcast.getMap("testMapIteratesInPages");
+        for (int i = 0; i < 2500; i++) {
+            map.put(i, i * 2);
+        }
+        assertEquals(2500, map.keySet().size());
+        long sum = 0;
+        for (Integer value : map.values()) {
+            sum += value;
+        }
+        assertEquals(2500L * 2499, sum);
+        Set<Integer> keys = new HashSet<Integer>();
+        for (Iterator<Map.Entry<Integer, Integer>> it = map.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Integer, Integer> entry = it.next();
+            assertEquals(entry.getKey() * 2, entry.getValue().intValue());
+            assertTrue(keys.add(entry.getKey()));
+            if (entry.getKey() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(2500, keys.size());
+        assertEquals(1250, map.size());
+        assertEquals(1250, map.entrySet().size());
+        assertEquals(1250, map.values().size());
+        assertFalse(map.entrySet().isEmpty());
+        assertTrue(Hazelcast.getMap("testMapIteratesInPagesEmpty").keySet().isEmpty());
+        IMap<Integer, Integer> growing = Hazelcast.getMap("testMapIteratesInPagesGrowing");
+        for (int i = 0; i < 10000; i++) {
+            growing.put(i, i);
+        }
+        Set<Integer> seen = new HashSet<Integer>();
+        int next = 10000;
+        for (Integer key : growing.keySet()) {
+            assertTrue(seen.add(key));
+            // the record table of the owner grows while the iteration walks it
+            if (next < 30000) {
+                growing.put(next, next++);
+            }
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(seen.contains(i));
+        }
+    }
+
+    @Test
+    public void testMapPutAllGetAll() {
+        IMap<Integer, String> map = Hazelcast.getMap("testMapPutAllGetAll");
+        Map<Integer, String> entries = new HashMap<Integer, String>();
+        for (int i = 0; i < 500; i++) {
+            entries.put(i, "value" + i);
+        }
+        map.putAll(entries);
+        assertEquals(500, map.size());
+        assertEquals("value42", map.get(42));
+        Set<Integer> keys = new HashSet<Integer>();
+        for (int i = 450; i < 550; i++) {
+            keys.add(i);
+        }
+        Map<Integer, String> found = map.getAll(keys);
+        assertEquals(50, found.size());
+        for (int i = 450; i < 500; i++) {
+            assertEquals("value" + i, found.get(i));
+        }
+        assertFalse(found.containsKey(500));
+    }
+
+    @Test
+    public void testMapPutAllStoresBeforePutting() throws Exception {
+        MapConfig mapConfig = new MapConfig();
+        mapConfig.setName("testMapPutAllStoresBeforePutting");
+        MapStoreConfig mapStoreConfig = new MapStoreConfig();
+        mapStoreConfig.setEnabled(true);
+        mapStoreConfig.setClassName(SlowMapStore.class.getName());
+        mapConfig.setMapStoreConfig(mapStoreConfig);
+        Config.get().getMapMapConfigs().put("testMapPutAllStoresBeforePutting", mapConfig);
+        final IMap<Integer, String> map = Hazelcast.getMap("testMapPutAllStoresBeforePutting");
+        Map<Integer, String> entries = new HashMap<Integer, String>();
+        for (int i = 0; i < 100; i++) {
+            entries.put(i, "batch" + i);
+        }
+        Thread putter = new Thread() {
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ignored) {
+                }
+                map.put(5, "single");
+            }
+        };
+        putter.start();
+        map.putAll(entries);
+        putter.join();
+        // the put waited for the batch, in memory and in the store
+        assertEquals("single", map.get(5));
+        assertEquals("single", SlowMapStore.STORE.get(5));
+        assertEquals("batch7", SlowMapStore.STORE.get(7));
+        SlowMapStore.failing = true;
+        try {
+            map.putAll(Collections.singletonMap(200, "failed"));
+            fail();
+        } catch (RuntimeException expected) {
+        } finally {
+            SlowMapStore.failing = false;
+        }
+        assertNull(map.get(200));
+        assertEquals(100, map.size());
+    }
+
+    public static class SlowMapStore implements MapStore, MapLoader {
+        static final Map<Object, Object> STORE = new ConcurrentHashMap<Object, Object>();
+        static volatile boolean failing = false;
+
+        public void store(Object key, Object value) {
+            STORE.put(key, value);
+        }
+
+        public void storeAll(Map map) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException ignored) {
+            }
+            if (failing) {
+                throw new RuntimeException("store is down");
+            }
+            STORE.putAll(map);
+        }
+
+        public void delete(Object key) {
+            STORE.remove(key);
+        }
+
+        public void deleteAll(Collection keys) {
+            for (Object key : keys) {
+                STORE.remove(key);
+            }
+        }
+
+        public Object load(Object key) {
+            return STORE.get(key);
+        }
+
+        public Map loadAll(Collection keys) {
+            Map map = new HashMap();
+            for (Object key : keys) {
+                if (STORE.containsKey(key)) {
+                    map.put(key, STORE.get(key));
+                }
+            }
+            return map;
+        }
+    }
+
+    @Test
+    public void testAsyncMapAndQueueOperations() throws Exception {
+        IMap<Integer, String> map = Hazelcast.getMap("testAsyncMapAndQueueOperations");
+        List<Future<String>> puts = new ArrayList<Future<String>>();
+        for (int i = 0; i < 1000; i++) {
+            puts.add(map.putAsync(i, "value" + i));
+        }
+        for (Future<String> put : puts) {
+            assertNull(put.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals("value7", map.putAsync(7, "seven").get());
+        final CountDownLatch latch = new CountDownLatch(1000);
+        final Map<Integer, String> got = new ConcurrentHashMap<Integer, String>();
+        for (int i = 0; i < 1000; i++) {
+            final int key = i;
+            map.getAsync(key, new ExecutionCallback<String>() {
+                public void done(Future<String> future) {
+                    try {
+                        got.put(key, future.get());
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1000, got.size());
+        assertEquals("seven", got.get(7));
+        assertEquals("value999", got.get(999));
+        assertNull(map.getAsync(1000).get());
+        IQueue<Integer> queue = Hazelcast.getQueue("testAsyncMapAndQueueOperations");
+        List<Future<Boolean>> offers = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < 100; i++) {
+            offers.add(queue.offerAsync(i));
+        }
+        for (Future<Boolean> offer : offers) {
+            assertTrue(offer.get());
+        }
+        assertEquals(100, queue.size());
+    }
+
     @Test
     public void testMapEntrySet() {
         IMap<String, String> map = Hazelcast.getMap("testMapEntrySet");
@@ -289,6 +660,26 @@ public class HazelcastTest {
         topic.publish("Hello World");
     }
 
+    @Test
+    public void testTopicPublishKeepsOrder() throws Exception {
+        ITopic<Integer> topic = Hazelcast.getTopic("testTopicPublishKeepsOrder");
+        final List<Integer> messages = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch latch = new CountDownLatch(100);
+        topic.addMessageListener(new MessageListener<Integer>() {
+            public void onMessage(Integer msg) {
+                messages.add(msg);
+                latch.countDown();
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            topic.publish(i);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), messages.get(i));
+        }
+    }
+
     @Test
     public void testQueueAdd() {
         IQueue<String> queue = Hazelcast.getQueue("testQueueAdd");
@@ -482,6 +873,34 @@ public class HazelcastTest {
         assertEquals("testIdGenerator", id.getName());
     }
 
+    @Test
+    public void testIdGeneratorUniqueAcrossBlocks() throws Exception {
+        final IdGenerator id = Hazelcast.getIdGenerator("testIdGeneratorUniqueAcrossBlocks");
+        final int threadCount = 4;
+        final long[][] ids = new long[threadCount][600000];
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final long[] mine = ids[i];
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < mine.length; j++) {
+                        mine[j] = id.newId();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        long[] all = new long[threadCount * ids[0].length];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+            System.arraycopy(ids[i], 0, all, i * ids[i].length, ids[i].length);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertTrue(all[i] > all[i - 1]);
+        }
+    }
+
     @Test
     public void testLock() {
         ILock lock = Hazelcast.getLock("testLock");
@@ -0,0 +1,22 @@
+package com.hazelcast.space;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * A tuple that cannot be deserialized while failReads is set.
+ */
+public class FailingTestSpaceObject implements Serializable {
+    static volatile boolean failReads = false;
+
+    public String name;
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (failReads) {
+            throw new InvalidObjectException("failing on purpose");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.hazelcast.space;
+
+import java.io.Serializable;
+
+/**
+ * A tuple placed by its symbol.
+ */
+public class RoutedTestSpaceObject implements Serializable {
+    @SpaceRouting
+    public String symbol;
+    public Integer quantity;
+}
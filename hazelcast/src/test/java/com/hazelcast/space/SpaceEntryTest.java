@@ -0,0 +1,55 @@
+package com.hazelcast.space;
+
+import com.hazelcast.nio.Data;
+import static com.hazelcast.nio.BufferUtil.toData;
+import static com.hazelcast.nio.BufferUtil.toObject;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ */
+public class SpaceEntryTest {
+
+    @Test
+    public void testSerializedForm() {
+        PublicTestSpaceObject o = new PublicTestSpaceObject();
+        o.arg0 = "foo";
+        Map elements = SpaceHelper.extractElements(o);
+        SpaceEntry entry = new SpaceEntry(42, o, elements, 1000);
+        Data data = toData(entry);
+        SpaceEntry read = (SpaceEntry) toObject(data);
+        assertEquals(42, read.getId());
+        assertEquals(entry.getExpiration(), read.getExpiration());
+        assertEquals(elements, read.getElements());
+        assertEquals("foo", ((PublicTestSpaceObject) read.getEntry()).arg0);
+    }
+
+    @Test
+    public void testTypedElements() {
+        SpaceHelperTest.TypedTuple tuple = new SpaceHelperTest.TypedTuple();
+        tuple.name = "bar";
+        tuple.count = 7;
+        SpaceEntry entry = new SpaceEntry(1, tuple, SpaceHelper.extractElements(tuple), 1000);
+        SpaceEntry read = (SpaceEntry) toObject(toData(entry));
+        assertEquals(7, read.getElements().get("count"));
+        assertEquals(0L, read.getElements().get("getSize"));
+        assertEquals("bar", read.getElements().get("name"));
+    }
+
+    @Test
+    public void testRoutedKeysShareThePartitionHash() {
+        RoutedTestSpaceObject o = new RoutedTestSpaceObject();
+        o.symbol = "IBM";
+        SpaceEntry entry = new SpaceEntry(3, o, SpaceHelper.extractElements(o), 1000);
+        entry.setRoutingHash("IBM".hashCode());
+        SpaceEntry read = (SpaceEntry) toObject(toData(entry));
+        assertEquals(new SpaceKey(3, "IBM".hashCode()), read.getKey());
+        Data key = toData(read.getKey());
+        assertEquals("IBM".hashCode(), key.getPartitionHash());
+        assertEquals("IBM".hashCode(), toData(new SpaceKey(4, "IBM".hashCode())).getPartitionHash());
+        assertEquals(read.getKey(), toObject(key));
+        assertEquals(3L, new SpaceEntry(3, o, null, 1000).getKey());
+    }
+}
@@ -0,0 +1,68 @@
+package com.hazelcast.space;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ */
+public class SpaceHelperTest {
+
+    public static class TypedTuple implements Serializable {
+        public String name;
+        public Integer count;
+        private long size;
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    @Test
+    public void testElementsAreTypedAndOrdered() {
+        TypedTuple t = new TypedTuple();
+        t.name = "a";
+        t.count = 1;
+        t.size = 2;
+        Map elements = SpaceHelper.extractElements(t);
+        List<Object> names = new ArrayList<Object>(elements.keySet());
+        assertEquals(3, names.size());
+        assertEquals("count", names.get(0));
+        assertEquals("getSize", names.get(1));
+        assertEquals("name", names.get(2));
+        assertEquals(1, elements.get("count"));
+        assertEquals(2L, elements.get("getSize"));
+        assertFalse(elements.containsKey("getClass"));
+    }
+
+    @Test
+    public void testTypedMatch() {
+        TypedTuple entry = new TypedTuple();
+        entry.name = "a";
+        entry.count = 1;
+        TypedTuple template = new TypedTuple();
+        template.count = 1;
+        assertTrue(SpaceHelper.elementsMatch(SpaceHelper.extractElements(template), SpaceHelper.extractElements(entry)));
+        template.count = 2;
+        assertFalse(SpaceHelper.elementsMatch(SpaceHelper.extractElements(template), SpaceHelper.extractElements(entry)));
+    }
+
+    @Test
+    public void testCriteriaMatch() {
+        TypedTuple entry = new TypedTuple();
+        entry.name = "abc";
+        entry.count = 5;
+        Map elements = SpaceHelper.extractElements(entry);
+        assertTrue(new Criteria().between("count", 5, 6).startsWith("name", "ab").matches(elements));
+        assertTrue(new Criteria().greaterThan("getSize", -1).in("count", 4, 5).matches(elements));
+        assertFalse(new Criteria().lessThan("count", 5).matches(elements));
+        assertFalse(new Criteria().greaterThan("name", 5).matches(elements));
+        assertFalse(new Criteria().equal("missing", 1).matches(elements));
+        assertTrue(new Criteria().equal("count", 5L).in("count", 4.0, 5.0).between("count", 4.5, 5L).matches(elements));
+        assertFalse(new Criteria().equal("count", 5.5).matches(elements));
+    }
+}
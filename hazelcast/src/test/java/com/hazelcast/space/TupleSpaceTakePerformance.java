@@ -0,0 +1,104 @@
+package com.hazelcast.space;
+
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.PerformanceTest;
+import com.hazelcast.core.PerformanceTimer;
+import static org.junit.Assert.assertEquals;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Take throughput as the number of competing takers grows. Every tuple
+ * must be delivered to exactly one taker.
+ */
+public class TupleSpaceTakePerformance extends PerformanceTest {
+
+    private static final long TEN_MINUTES = 10 * 60 * 1000;
+    private static final int TUPLES = 2000;
+
+    private final TupleSpace space = Hazelcast.getSpace();
+
+    @After
+    public void printResult() {
+        t.printResult();
+    }
+
+    @Test
+    public void testTake1() throws Exception {
+        takeConcurrently(1);
+    }
+
+    @Test
+    public void testTake2() throws Exception {
+        takeConcurrently(2);
+    }
+
+    @Test
+    public void testTake4() throws Exception {
+        takeConcurrently(4);
+    }
+
+    @Test
+    public void testTake8() throws Exception {
+        takeConcurrently(8);
+    }
+
+    @Test
+    public void testTake16() throws Exception {
+        takeConcurrently(16);
+    }
+
+    @Test
+    public void testTake32() throws Exception {
+        takeConcurrently(32);
+    }
+
+    @Test
+    public void testTake64() throws Exception {
+        takeConcurrently(64);
+    }
+
+    private void takeConcurrently(int takers) throws Exception {
+        for (int i = 0; i < TUPLES; i++) {
+            PublicTestSpaceObject o = new PublicTestSpaceObject();
+            o.arg0 = String.valueOf(i);
+            o.arg2 = "take";
+            space.write(o, TEN_MINUTES);
+        }
+        final ConcurrentHashMap<String, Boolean> seen = new ConcurrentHashMap<String, Boolean>();
+        final AtomicInteger duplicates = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(takers);
+        for (int i = 0; i < takers; i++) {
+            new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        PublicTestSpaceObject template = new PublicTestSpaceObject();
+                        template.arg2 = "take";
+                        PublicTestSpaceObject o;
+                        while ((o = space.takeIfExists(template)) != null) {
+                            if (seen.putIfAbsent(o.arg0, Boolean.TRUE) != null) {
+                                duplicates.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        // done
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        t = new PerformanceTimer("testTake" + takers, TUPLES);
+        start.countDown();
+        done.await();
+        t.stop();
+        assertEquals(0, duplicates.get());
+        assertEquals(TUPLES, seen.size());
+    }
+}
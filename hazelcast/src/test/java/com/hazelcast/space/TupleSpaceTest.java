@@ -2,14 +2,28 @@ package com.hazelcast.space;
 
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.Transaction;
+import com.hazelcast.impl.FactoryImpl;
 import com.hazelcast.space.event.SpaceEvent;
 import com.hazelcast.space.event.SpaceEventListener;
+import com.hazelcast.space.event.SpaceEventType;
 import com.hazelcast.space.lease.Lease;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  */
 public class TupleSpaceTest {
@@ -106,6 +120,124 @@ public class TupleSpaceTest {
         assertEquals(r.arg0, "foo");
     }
 
+    @Test
+    public void testTemplateMatchesOnlyIndexedEntries() {
+        TupleSpace space = Hazelcast.getSpace();
+        PublicTestSpaceObject foo = new PublicTestSpaceObject();
+        foo.arg0 = "indexed-foo";
+        PublicTestSpaceObject bar = new PublicTestSpaceObject();
+        bar.arg0 = "indexed-bar";
+        bar.arg2 = "second";
+        space.write(foo, TEN_MINUTES);
+        space.write(bar, TEN_MINUTES);
+        PublicTestSpaceObject template = new PublicTestSpaceObject();
+        template.arg2 = "second";
+        PublicTestSpaceObject r = space.take(template, 0);
+        assertNotNull(r);
+        assertEquals("indexed-bar", r.arg0);
+        assertNull(space.take(template, 0));
+        template = new PublicTestSpaceObject();
+        template.arg0 = "indexed-foo";
+        r = space.take(template, 0);
+        assertNotNull(r);
+        assertEquals("indexed-foo", r.arg0);
+    }
+
+    @Test
+    public void testBatchWriteReadTake() {
+        TupleSpace space = Hazelcast.getSpace();
+        List<PublicTestSpaceObject> objects = new ArrayList<PublicTestSpaceObject>();
+        for (int i = 0; i < 100; i++) {
+            PublicTestSpaceObject o = new PublicTestSpaceObject();
+            o.arg0 = String.valueOf(i);
+            o.arg3 = "batch";
+            objects.add(o);
+        }
+        assertEquals(100, space.writeAll(objects, TEN_MINUTES).size());
+        PublicTestSpaceObject template = new PublicTestSpaceObject();
+        template.arg3 = "batch";
+        assertEquals(10, space.readMultiple(template, 10).size());
+        assertEquals(60, space.takeMultiple(template, 60, 0).size());
+        assertEquals(40, space.takeMultiple(template, 100, 0).size());
+        assertEquals(0, space.takeMultiple(template, 100, 0).size());
+    }
+
+    @Test
+    public void testFailedTakeMultipleKeepsEntries() {
+        TupleSpace space = Hazelcast.getSpace();
+        List<FailingTestSpaceObject> objects = new ArrayList<FailingTestSpaceObject>();
+        for (int i = 0; i < 5; i++) {
+            FailingTestSpaceObject o = new FailingTestSpaceObject();
+            o.name = "failing";
+            objects.add(o);
+        }
+        space.writeAll(objects, TEN_MINUTES);
+        FailingTestSpaceObject template = new FailingTestSpaceObject();
+        template.name = "failing";
+        FailingTestSpaceObject.failReads = true;
+        try {
+            space.takeMultiple(template, 10, 0);
+            fail();
+        } catch (RuntimeException expected) {
+        } finally {
+            FailingTestSpaceObject.failReads = false;
+        }
+        assertEquals(5, space.takeMultiple(template, 10, 0).size());
+    }
+
+    @Test
+    public void testCriteriaRangesSetsAndPrefixes() {
+        TupleSpace space = Hazelcast.getSpace();
+        List<SpaceHelperTest.TypedTuple> tuples = new ArrayList<SpaceHelperTest.TypedTuple>();
+        for (int i = 0; i < 20; i++) {
+            SpaceHelperTest.TypedTuple t = new SpaceHelperTest.TypedTuple();
+            t.name = ((i % 2 == 0) ? "criteria-even-" : "criteria-odd-") + i;
+            t.count = i;
+            tuples.add(t);
+        }
+        space.writeAll(tuples, TEN_MINUTES);
+        Class<SpaceHelperTest.TypedTuple> type = SpaceHelperTest.TypedTuple.class;
+        assertEquals(5, space.readMultiple(type, new Criteria().between("count", 5, 9), 20).size());
+        assertEquals(3, space.readMultiple(type, new Criteria().in("count", 1, 2, 3, 42), 20).size());
+        assertEquals(3, space.readMultiple(type, new Criteria().in("count", 1L, 2.0, 3, 42), 20).size());
+        assertEquals(1, space.readMultiple(type, new Criteria().equal("count", 4L), 20).size());
+        assertEquals(10, space.readMultiple(type, new Criteria().startsWith("name", "criteria-odd-"), 20).size());
+        assertEquals(2, space.readMultiple(type, new Criteria()
+                .startsWith("name", "criteria-even-").greaterThanOrEqual("count", 10L).lessThan("count", 14), 20).size());
+        SpaceHelperTest.TypedTuple t = space.take(type, new Criteria().equal("count", 7), 0);
+        assertNotNull(t);
+        assertEquals("criteria-odd-7", t.name);
+        assertNull(space.takeIfExists(type, new Criteria().equal("count", 7)));
+        assertEquals(19, space.takeMultiple(type, new Criteria().startsWith("name", "criteria-"), 100, 0).size());
+    }
+
+    @Test
+    public void testRoutedTemplates() {
+        TupleSpace space = Hazelcast.getSpace();
+        List<RoutedTestSpaceObject> objects = new ArrayList<RoutedTestSpaceObject>();
+        for (int i = 0; i < 30; i++) {
+            RoutedTestSpaceObject o = new RoutedTestSpaceObject();
+            o.symbol = "routed-" + (i % 3);
+            o.quantity = i;
+            objects.add(o);
+        }
+        List<Lease> leases = space.writeAll(objects, TEN_MINUTES);
+        RoutedTestSpaceObject template = new RoutedTestSpaceObject();
+        template.symbol = "routed-1";
+        assertEquals(10, space.readMultiple(template, 100).size());
+        assertEquals(5, space.readMultiple(RoutedTestSpaceObject.class,
+                new Criteria().equal("symbol", "routed-2").lessThan("quantity", 15), 100).size());
+        RoutedTestSpaceObject taken = space.take(template, 0);
+        assertNotNull(taken);
+        assertEquals("routed-1", taken.symbol);
+        assertEquals(9, space.takeMultiple(template, 100, 0).size());
+        assertNull(space.takeIfExists(template));
+        leases.get(0).cancel();
+        template.symbol = "routed-0";
+        assertEquals(9, space.takeMultiple(template, 100, 0).size());
+        assertEquals(10, space.takeMultiple(new RoutedTestSpaceObject(), 100, 0).size());
+    }
+
     @Test
     public void testMultipleTake() {
         TupleSpace space = Hazelcast.getSpace();
@@ -122,6 +254,86 @@ public class TupleSpaceTest {
         }
     }
 
+    @Test
+    public void testConcurrentTakersGetEveryWrite() throws Exception {
+        final TupleSpace space = Hazelcast.getSpace();
+        FactoryImpl remote = FactoryImpl.getFactory("space-takers");
+        ExecutorService takers = Executors.newFixedThreadPool(3);
+        try {
+            final TupleSpace remoteSpace = remote.getTupleSpace();
+            final PublicTestSpaceObject template = new PublicTestSpaceObject();
+            template.arg0 = "concurrent-takers";
+            for (int round = 0; round < 5; round++) {
+                List<Future<PublicTestSpaceObject>> results = new ArrayList<Future<PublicTestSpaceObject>>();
+                // two local takers race one on the other member for two entries
+                for (final TupleSpace takerSpace : new TupleSpace[]{space, space, remoteSpace}) {
+                    results.add(takers.submit(new Callable<PublicTestSpaceObject>() {
+                        public PublicTestSpaceObject call() {
+                            return takerSpace.take(template, 3000);
+                        }
+                    }));
+                }
+                Thread.sleep(500);
+                List<PublicTestSpaceObject> objects = new ArrayList<PublicTestSpaceObject>();
+                for (int i = 0; i < 2; i++) {
+                    PublicTestSpaceObject o = new PublicTestSpaceObject();
+                    o.arg0 = "concurrent-takers";
+                    o.arg2 = round + "-" + i;
+                    objects.add(o);
+                }
+                space.writeAll(objects, TEN_MINUTES);
+                int taken = 0;
+                for (Future<PublicTestSpaceObject> result : results) {
+                    if (result.get() != null) {
+                        taken++;
+                    }
+                }
+                assertEquals(2, taken);
+                assertNull(space.takeIfExists(template));
+            }
+        } finally {
+            takers.shutdown();
+            remote.shutdown();
+        }
+    }
+
+    @Test
+    public void testRenewedLeasesSurviveOwnerLeaving() throws Exception {
+        TupleSpace space = Hazelcast.getSpace();
+        FactoryImpl remote = FactoryImpl.getFactory("space-leases");
+        try {
+            List<PublicTestSpaceObject> objects = new ArrayList<PublicTestSpaceObject>();
+            for (int i = 0; i < 20; i++) {
+                PublicTestSpaceObject o = new PublicTestSpaceObject();
+                o.arg0 = "renewed";
+                o.arg2 = String.valueOf(i);
+                objects.add(o);
+            }
+            List<Lease> leases = remote.getTupleSpace().writeAll(objects, 3000);
+            space.renewAll(leases, TEN_MINUTES);
+        } finally {
+            remote.shutdown();
+        }
+        Thread.sleep(5000);
+        PublicTestSpaceObject template = new PublicTestSpaceObject();
+        template.arg0 = "renewed";
+        assertEquals(20, space.takeMultiple(template, 100, 0).size());
+    }
+
+    @Test
+    public void testRenewAndCancelLeases() throws Exception {
+        TupleSpace space = Hazelcast.getSpace();
+        PublicTestSpaceObject renewed = new PublicTestSpaceObject();
+        renewed.arg0 = "lease-renewed";
+        space.write(renewed, 1000).renew(TEN_MINUTES);
+        PublicTestSpaceObject cancelled = new PublicTestSpaceObject();
+        cancelled.arg0 = "lease-cancelled";
+        space.write(cancelled, TEN_MINUTES).cancel();
+        Thread.sleep(3000);
+        assertNotNull(space.take(renewed, 0));
+        assertNull(space.take(cancelled, 0));
+    }
+
     @Test
     public void testReadWithTimeout() {
         TupleSpace space = Hazelcast.getSpace();
@@ -147,6 +359,105 @@ public class TupleSpaceTest {
         Thread.sleep(Long.MAX_VALUE);
     }
 
+    @Test
+    public void testNotifyDeliversOnlyMatchingEvents() throws Exception {
+        TupleSpace space = Hazelcast.getSpace();
+        final List<SpaceEvent> events = Collections.synchronizedList(new ArrayList<SpaceEvent>());
+        Lease subscription = space.notify(PublicTestSpaceObject.class, new Criteria().startsWith("arg0", "notify-match"),
+                new SpaceEventListener() {
+                    public void notify(SpaceEvent event) {
+                        events.add(event);
+                    }
+                }, ONE_MINUTE);
+        for (int i = 0; i < 20; i++) {
+            PublicTestSpaceObject o = new PublicTestSpaceObject();
+            o.arg0 = ((i % 4 == 0) ? "notify-match-" : "notify-other-") + i;
+            space.write(o, TEN_MINUTES);
+        }
+        PublicTestSpaceObject template = new PublicTestSpaceObject();
+        template.arg0 = "notify-match-0";
+        assertNotNull(space.take(template, 0));
+        Thread.sleep(3000);
+        assertEquals(6, events.size());
+        assertEquals(SpaceEventType.TAKEN, events.get(5).getType());
+        subscription.cancel();
+        PublicTestSpaceObject o = new PublicTestSpaceObject();
+        o.arg0 = "notify-match-late";
+        space.write(o, TEN_MINUTES);
+        Thread.sleep(2000);
+        assertEquals(6, events.size());
+        assertEquals(20, space.takeMultiple(PublicTestSpaceObject.class, new Criteria().startsWith("arg0", "notify-"),
+                100, 0).size());
+    }
+
+    @Test
+    public void testNotifyDeliversBatchesInOrder() throws Exception {
+        TupleSpace space = Hazelcast.getSpace();
+        final List<SpaceEvent> events = Collections.synchronizedList(new ArrayList<SpaceEvent>());
+        Lease subscription = space.notify(PublicTestSpaceObject.class, new Criteria().equal("arg0", "notify-ordered"),
+                new SpaceEventListener() {
+                    public void notify(SpaceEvent event) {
+                        events.add(event);
+                    }
+                }, ONE_MINUTE);
+        List<PublicTestSpaceObject> objects = new ArrayList<PublicTestSpaceObject>();
+        for (int i = 0; i < 250; i++) {
+            PublicTestSpaceObject o = new PublicTestSpaceObject();
+            o.arg0 = "notify-ordered";
+            o.arg2 = String.valueOf(i);
+            objects.add(o);
+        }
+        space.writeAll(objects, TEN_MINUTES);
+        PublicTestSpaceObject template = new PublicTestSpaceObject();
+        template.arg0 = "notify-ordered";
+        assertEquals(250, space.takeMultiple(template, 1000, 0).size());
+        Thread.sleep(3000);
+        subscription.cancel();
+        assertEquals(500, events.size());
+        // several batches are in flight at once; the taken event of an entry still follows its added event
+        Set<Long> added = new HashSet<Long>();
+        for (SpaceEvent event : events) {
+            if (event.getType() == SpaceEventType.ADDED) {
+                added.add(event.getId());
+            } else {
+                assertTrue(added.contains(event.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void testJoiningMemberLearnsSubscriptions() throws Exception {
+        TupleSpace space = Hazelcast.getSpace();
+        final List<SpaceEvent> events = Collections.synchronizedList(new ArrayList<SpaceEvent>());
+        Lease subscription = space.notify(PublicTestSpaceObject.class, new Criteria().equal("arg0", "notify-joined"),
+                new SpaceEventListener() {
+                    public void notify(SpaceEvent event) {
+                        events.add(event);
+                    }
+                }, ONE_MINUTE);
+        FactoryImpl remote = FactoryImpl.getFactory("space-subscriptions");
+        try {
+            Thread.sleep(2000);
+            List<PublicTestSpaceObject> objects = new ArrayList<PublicTestSpaceObject>();
+            for (int i = 0; i < 20; i++) {
+                PublicTestSpaceObject o = new PublicTestSpaceObject();
+                o.arg0 = "notify-joined";
+                o.arg2 = String.valueOf(i);
+                objects.add(o);
+            }
+            // about half of them are owned by the joined member
+            remote.getTupleSpace().writeAll(objects, TEN_MINUTES);
+            Thread.sleep(3000);
+            assertEquals(20, events.size());
+            PublicTestSpaceObject template = new PublicTestSpaceObject();
+            template.arg0 = "notify-joined";
+            assertEquals(20, space.takeMultiple(template, 100, 0).size());
+        } finally {
+            subscription.cancel();
+            remote.shutdown();
+        }
+    }
+
     @Test
     public void testExpiration() throws Exception {
         TupleSpace space = Hazelcast.getSpace();